@@ -0,0 +1,70 @@
+package com.github.b1uec0in.josaformatter;
+
+// BMP 문자 집합. 65536 bit를 미리 계산해 두고 포함 여부를 bit 하나로 확인한다.
+// 생성 이후에는 변경되지 않으므로 여러 쓰레드에서 공유할 수 있다. with(), without()은 새 집합을 만든다.
+// ex) josaFormatter.setJosaBoundaryChars(CharClass.DEFAULT_JOSA_BOUNDARY.with("♡"));
+public final class CharClass {
+    private static final int WORD_COUNT = 0x10000 / 64;
+
+    // 조사 앞에 붙는 문자중 무시할 문자들. ex) "(%s)으로", "「%s」는"
+    public static final CharClass DEFAULT_END_SKIP = of("\"')]}>" + "」』）】》〉〕］｝＂＇“”‘’");
+
+    // 조사 뒤에 올 수 있는 문자들. 공백, 문장 부호, 닫는 괄호/따옴표, 이모지. ex) "%s는!", "%s이다.", "%s를😀"
+    public static final CharClass DEFAULT_JOSA_BOUNDARY = whitespace()
+            .with(".,!?;:~…·)]}>\"'")
+            .with("。、！？，．：；～」』）】》〉〕］｝＂＇“”‘’")
+            .withRange('\u2600', '\u27bf') // 기타 기호, dingbat ex) ☀, ✔
+            .withRange('\ud800', '\udfff') // surrogate (BMP 밖의 이모지)
+            .with("\u200d\ufe0f"); // zero width joiner, variation selector
+
+    private final long[] words;
+
+    private CharClass(long[] words) {
+        this.words = words;
+    }
+
+    public static CharClass of(String chars) {
+        return new CharClass(new long[WORD_COUNT]).with(chars);
+    }
+
+    // Character.isWhitespace()인 문자들
+    public static CharClass whitespace() {
+        long[] words = new long[WORD_COUNT];
+        for (int ch = 0; ch < 0x10000; ++ch) {
+            if (Character.isWhitespace(ch)) {
+                words[ch >>> 6] |= 1L << ch;
+            }
+        }
+        return new CharClass(words);
+    }
+
+    public boolean contains(char ch) {
+        return (words[ch >>> 6] & (1L << ch)) != 0;
+    }
+
+    public CharClass with(String chars) {
+        long[] words = this.words.clone();
+        for (int i = 0; i < chars.length(); ++i) {
+            char ch = chars.charAt(i);
+            words[ch >>> 6] |= 1L << ch;
+        }
+        return new CharClass(words);
+    }
+
+    public CharClass withRange(char first, char last) {
+        long[] words = this.words.clone();
+        for (int ch = first; ch <= last; ++ch) {
+            words[ch >>> 6] |= 1L << ch;
+        }
+        return new CharClass(words);
+    }
+
+    public CharClass without(String chars) {
+        long[] words = this.words.clone();
+        for (int i = 0; i < chars.length(); ++i) {
+            char ch = chars.charAt(i);
+            words[ch >>> 6] &= ~(1L << ch);
+        }
+        return new CharClass(words);
+    }
+}
@@ -5,6 +5,53 @@ package com.github.b1uec0in.josaformatter;
  */
 
 class CharUtils {
+    // 반각 가타카나 U+FF66 ~ U+FF9F -> 전각 가타카나
+    private static final String HALFWIDTH_KATAKANA =
+            "ヲァィゥェォャュョッーアイウエオカキクケコサシスセソタチツテトナニヌネノハヒフヘホマミムメモヤユヨラリルレロワン゛゜";
+
+    // U+FF00 ~ U+FFFF 반각/전각 형태를 일반 문자로 변환하는 표. 변환하지 않는 문자는 그대로.
+    private static final char[] HALFWIDTH_AND_FULLWIDTH_FORMS = new char[0x100];
+
+    static {
+        for (int i = 0; i < HALFWIDTH_AND_FULLWIDTH_FORMS.length; ++i) {
+            char ch = (char) (0xff00 + i);
+            if (ch >= 0xff01 && ch <= 0xff5e) {
+                // 전각 ASCII ex) ０ -> 0, Ａ -> A
+                ch = (char) (ch - 0xff01 + '!');
+            } else if (ch >= 0xff66 && ch <= 0xff9f) {
+                ch = HALFWIDTH_KATAKANA.charAt(ch - 0xff66);
+            } else if (ch >= 0xffa1 && ch <= 0xffbe) {
+                // 반각 한글 자음 -> 호환 자모
+                ch = (char) (ch - 0xffa1 + 0x3131);
+            } else if (ch >= 0xffc2 && ch <= 0xffdc && (ch & 0x7) >= 2) {
+                // 반각 한글 모음 -> 호환 자모. 6개씩 나뉘어 있다. (U+FFC2 ~ U+FFC7, U+FFCA ~ U+FFCF, ...)
+                ch = (char) (0x314f + ((ch - 0xffc2) >> 3) * 6 + (ch & 0x7) - 2);
+            }
+            HALFWIDTH_AND_FULLWIDTH_FORMS[i] = ch;
+        }
+    }
+
+    // 종성 검사용으로 전각 영문/숫자/기호와 반각 가타카나, 반각 한글 자모, 전각 공백을 일반 문자로 변환한다.
+    // java.text.Normalizer(NFKC)와 달리 문자열을 만들지 않고 문자 하나씩 표에서 찾는다.
+    public static char fold(char ch) {
+        if (ch >= 0xff00) {
+            return HALFWIDTH_AND_FULLWIDTH_FORMS[ch - 0xff00];
+        }
+        if (ch == 0x3000) {
+            return ' ';
+        }
+        return ch;
+    }
+
+    // fold()를 적용한 문자열. 드물게 사용하는 경로(소수, 큰 수)에서만 사용한다.
+    public static String foldedString(CharSequence charSequence, int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; ++i) {
+            chars[i - start] = fold(charSequence.charAt(i));
+        }
+        return new String(chars);
+    }
+
     public static boolean isAlpha(char ch) {
         return isAlphaLowerCase(ch) || isAlphaUpperCase(ch);
     }
@@ -25,13 +72,38 @@ class CharUtils {
         return ch >= 0xac00 && ch <= 0xd7af;
     }
 
+    // 한글 자모 U+1100 ~ U+11FF. NFD로 분해된 한글(macOS 파일 이름 등)은 끝 글자가 중성이나 종성 자모이다.
+    public static boolean isHangulJamo(char ch) {
+        return ch >= 0x1100 && ch <= 0x11ff && ch != 0x115f && ch != 0x1160; // 채움 문자 제외
+    }
+
+    // 한글 호환 자모 U+3131 ~ U+318E ex) ㅋㅋ, ㅠㅠ
+    public static boolean isHangulCompatibilityJamo(char ch) {
+        return ch >= 0x3131 && ch <= 0x318e && ch != 0x3164; // 채움 문자 제외
+    }
+
+    // 종성을 판단할 수 있는 한글 문자
+    public static boolean isHangul(char ch) {
+        return isHangulSyllables(ch) || isHangulJamo(ch) || isHangulCompatibilityJamo(ch);
+    }
+
     public static int getHangulJongSungType(char ch) {
         int result = 0;
         if (isHangulSyllables(ch)) {
             int code = (ch - 0xAC00) % 28;
             if (code > 0) ++result;
             if (code == 8) ++result;
+        } else if (ch >= 0x11a8 && ch <= 0x11ff) {
+            // 종성 자모. ex) "한"(U+1112 U+1161 U+11AB)
+            result = ch == 0x11af ? 2 : 1;
+        } else if (ch >= 0x1100 && ch <= 0x115e) {
+            // 초성 자모. 자음 이름으로 읽는다. ex) ㄱ(기역), ㄹ(리을)
+            result = ch == 0x1105 ? 2 : 1;
+        } else if ((ch >= 0x3131 && ch <= 0x314e) || (ch >= 0x3165 && ch <= 0x3186)) {
+            // 호환 자모 자음. 자음 이름으로 읽는다. ex) ㅋ(키읔)
+            result = ch == 0x3139 ? 2 : 1;
         }
+        // 중성 자모(U+1161 ~ U+11A7), 호환 자모 모음(U+314F ~ U+3163, U+3187 ~ U+318E)은 받침 없음
 
         return result;
     }
@@ -61,4 +133,46 @@ class CharUtils {
         return charSequence.charAt(length - 1);
     }
 
+    // [start, end) 구간의 마지막 문자. fold()를 적용한다.
+    public static char lastChar(CharSequence charSequence, int start, int end) {
+        if (charSequence == null || end <= start) {
+            return '\0';
+        }
+
+        return fold(charSequence.charAt(end - 1));
+    }
+
+    // [start, end) 구간에서 target을 찾는다. 없으면 -1
+    public static int indexOf(CharSequence charSequence, int start, int end, String target) {
+        int targetLength = target.length();
+        for (int i = start; i <= end - targetLength; ++i) {
+            int j = 0;
+            while (j < targetLength && charSequence.charAt(i + j) == target.charAt(j)) {
+                ++j;
+            }
+            if (j == targetLength) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    // 대소문자 구분 없이 [start, end) 구간이 suffix로 끝나는지 여부. suffix는 소문자. fold()를 적용한다.
+    public static boolean endsWithIgnoreCase(CharSequence charSequence, int start, int end, String suffix) {
+        int suffixLength = suffix.length();
+        if (end - start < suffixLength) {
+            return false;
+        }
+
+        int offset = end - suffixLength;
+        for (int i = 0; i < suffixLength; ++i) {
+            if (Character.toLowerCase(fold(charSequence.charAt(offset + i))) != suffix.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
 }
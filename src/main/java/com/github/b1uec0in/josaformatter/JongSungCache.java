@@ -0,0 +1,213 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 인자 문자열 -> 종성 유형 캐시. 같은 값(상품명, 닉네임 등)이 반복될 때 읽기 규칙 적용과 종성 검사를 생략한다.
+// 읽기 규칙이나 JongSungDetector 목록이 변경되면 자동으로 비워진다.
+// 여러 segment로 나누어 lock 경합을 줄이고, 각 segment는 개수와 크기(문자 수)를 넘으면 가장 오래 사용하지 않은 항목부터 제거한다.
+// ex) josaFormatter.setJongSungCache(new JongSungCache(10000, 200000));
+public class JongSungCache {
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+    public static final int DEFAULT_MAX_KEY_LENGTH = 64;
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+    private final int maxKeyLength;
+
+    // 캐시를 비울 때마다 증가. 이전 설정으로 계산한 결과가 추가되지 않도록 한다.
+    private volatile int generation;
+    private volatile Configuration configuration;
+
+    // maxSize: 최대 항목 수, maxWeight: 최대 문자 수
+    public JongSungCache(int maxSize, int maxWeight) {
+        this(maxSize, maxWeight, DEFAULT_MAX_KEY_LENGTH);
+    }
+
+    // maxKeyLength 보다 긴 문자열(파일 경로 등)은 캐시하지 않는다.
+    public JongSungCache(int maxSize, int maxWeight, int maxKeyLength) {
+        this.maxKeyLength = maxKeyLength;
+        int segmentMaxSize = Math.max(1, (maxSize + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+        int segmentMaxWeight = Math.max(1, (maxWeight + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; ++i) {
+            segments[i] = new Segment(segmentMaxSize, segmentMaxWeight);
+        }
+    }
+
+    public int get(String key) {
+        if (key.length() > maxKeyLength) {
+            return NOT_FOUND;
+        }
+        return segmentFor(key).get(key);
+    }
+
+    // generation은 값을 계산하기 전에 getGeneration()으로 얻은 값
+    public void put(String key, int jongSungType, int generation) {
+        if (key.length() > maxKeyLength) {
+            return;
+        }
+        segmentFor(key).put(key, jongSungType, generation);
+    }
+
+    // 읽기 규칙이나 JongSungDetector 목록이 마지막 확인 이후 변경되었으면 캐시를 비운다.
+    public int getGeneration(int readingRulesVersion, List<JosaFormatter.JongSungDetector> jongSungDetectors) {
+        Configuration configuration = this.configuration;
+        if (configuration == null || !configuration.matches(readingRulesVersion, jongSungDetectors)) {
+            synchronized (this) {
+                configuration = this.configuration;
+                if (configuration == null || !configuration.matches(readingRulesVersion, jongSungDetectors)) {
+                    clear();
+                    this.configuration = new Configuration(readingRulesVersion, jongSungDetectors);
+                }
+            }
+        }
+
+        return generation;
+    }
+
+    public synchronized void clear() {
+        ++generation;
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        long count = 0;
+        for (Segment segment : segments) {
+            count += segment.hitCount;
+        }
+        return count;
+    }
+
+    public long getMissCount() {
+        long count = 0;
+        for (Segment segment : segments) {
+            count += segment.missCount;
+        }
+        return count;
+    }
+
+    public long getEvictionCount() {
+        long count = 0;
+        for (Segment segment : segments) {
+            count += segment.evictionCount;
+        }
+        return count;
+    }
+
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[hash & (SEGMENT_COUNT - 1)];
+    }
+
+    private final class Segment {
+        private final int maxSize;
+        private final int maxWeight;
+
+        // access order
+        private final LinkedHashMap<String, Integer> map = new LinkedHashMap<>(16, 0.75f, true);
+        private int weight;
+
+        volatile long hitCount;
+        volatile long missCount;
+        volatile long evictionCount;
+
+        Segment(int maxSize, int maxWeight) {
+            this.maxSize = maxSize;
+            this.maxWeight = maxWeight;
+        }
+
+        synchronized int get(String key) {
+            Integer jongSungType = map.get(key);
+            if (jongSungType == null) {
+                ++missCount;
+                return NOT_FOUND;
+            }
+            ++hitCount;
+            return jongSungType;
+        }
+
+        synchronized void put(String key, int jongSungType, int generation) {
+            if (generation != JongSungCache.this.generation) {
+                return;
+            }
+
+            if (map.put(key, jongSungType) == null) {
+                weight += key.length();
+            }
+
+            Iterator<Map.Entry<String, Integer>> iterator = map.entrySet().iterator();
+            while ((map.size() > maxSize || weight > maxWeight) && iterator.hasNext()) {
+                Map.Entry<String, Integer> eldest = iterator.next();
+                weight -= eldest.getKey().length();
+                iterator.remove();
+                ++evictionCount;
+            }
+        }
+
+        synchronized void clear() {
+            map.clear();
+            weight = 0;
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+    }
+
+    // 캐시된 값을 계산할 때 사용한 설정
+    private static final class Configuration {
+        private final int readingRulesVersion;
+        private final List<JosaFormatter.JongSungDetector> list;
+        private final JosaFormatter.JongSungDetector[] jongSungDetectors;
+
+        // jongSungDetectors[i]의 규칙 버전
+        private final int[] rulesVersions;
+
+        Configuration(int readingRulesVersion, List<JosaFormatter.JongSungDetector> jongSungDetectors) {
+            this.readingRulesVersion = readingRulesVersion;
+            this.list = jongSungDetectors;
+            this.jongSungDetectors = jongSungDetectors.toArray(new JosaFormatter.JongSungDetector[jongSungDetectors.size()]);
+            this.rulesVersions = new int[this.jongSungDetectors.length];
+            for (int i = 0; i < rulesVersions.length; ++i) {
+                rulesVersions[i] = getRulesVersion(this.jongSungDetectors[i]);
+            }
+        }
+
+        private static int getRulesVersion(JosaFormatter.JongSungDetector jongSungDetector) {
+            if (jongSungDetector instanceof JosaFormatter.TextJongSungDetector) {
+                return ((JosaFormatter.TextJongSungDetector) jongSungDetector).getRulesVersion();
+            }
+            return 0;
+        }
+
+        boolean matches(int readingRulesVersion, List<JosaFormatter.JongSungDetector> jongSungDetectors) {
+            if (this.readingRulesVersion != readingRulesVersion
+                    || this.list != jongSungDetectors
+                    || this.jongSungDetectors.length != jongSungDetectors.size()) {
+                return false;
+            }
+
+            for (int i = 0; i < this.jongSungDetectors.length; ++i) {
+                if (this.jongSungDetectors[i] != jongSungDetectors.get(i) || rulesVersions[i] != getRulesVersion(jongSungDetectors.get(i))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
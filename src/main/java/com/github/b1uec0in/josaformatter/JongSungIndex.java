@@ -0,0 +1,284 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+
+// 고정된 이름 목록(상품명, 매장명 등)의 종성 유형을 미리 계산해 둔 읽기 전용 색인 파일.
+// 파일을 memory-mapped ByteBuffer로 읽으므로 이름 문자열을 heap에 올리지 않고, 같은 파일을 여러 JVM이 공유할 수 있다.
+// JosaFormatter.setJongSungIndex()로 등록하면 읽기 규칙, JongSungDetector보다 먼저 찾는다. 찾을 때 메모리를 할당하지 않는다.
+// ex) JongSungIndex.write(josaFormatter, names, new FileOutputStream("names.jsi"));
+//     josaFormatter.setJongSungIndex(JongSungIndex.load(new File("names.jsi")));
+//
+// 이름을 hash로 bucket에 나누고 bucket 순서로 정렬해서 저장한다. bucket 하나에는 평균 1개 이하의 이름이 들어간다.
+// ByteBuffer 하나로 읽으므로 파일 크기는 2GB를 넘을 수 없다.
+//
+// int     magic ("JSIX")
+// short   version
+// byte    bucket bits
+// byte    0
+// int     count
+// int     bucket start [(1 << bucket bits) + 1]
+// int     key offset [count + 1] (char 단위)
+// byte    종성 유형 [(count + 3) / 4], 2 bit씩
+// byte    0 (padding, char 정렬)
+// char    keys
+public final class JongSungIndex {
+    public static final int NOT_FOUND = JongSungCache.NOT_FOUND;
+
+    private static final int MAGIC = 0x4A534958;
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int MAX_BUCKET_BITS = 28;
+
+    private final ByteBuffer buffer;
+    private final int bucketBits;
+    private final int count;
+    private final int bucketsPosition;
+    private final int offsetsPosition;
+    private final int valuesPosition;
+    private final int keysPosition;
+
+    private JongSungIndex(ByteBuffer buffer, int bucketBits, int count) {
+        this.buffer = buffer;
+        this.bucketBits = bucketBits;
+        this.count = count;
+        bucketsPosition = HEADER_SIZE;
+        offsetsPosition = bucketsPosition + ((1 << bucketBits) + 1) * 4;
+        valuesPosition = offsetsPosition + (count + 1) * 4;
+        keysPosition = align2(valuesPosition + (count + 3) / 4);
+    }
+
+    public static JongSungIndex load(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            ByteBuffer buffer;
+            try {
+                // 채널을 닫아도 mapping은 유지된다.
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (IllegalArgumentException e) {
+                // 2GB 보다 큰 파일
+                throw new IOException("jongsung index too large: " + file, e);
+            }
+            return load(buffer);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    public static JongSungIndex load(ByteBuffer byteBuffer) throws IOException {
+        // 위치를 바꾸지 않는 절대 위치 읽기만 사용하므로 여러 쓰레드에서 공유해도 안전하다.
+        ByteBuffer buffer = byteBuffer.slice().order(ByteOrder.BIG_ENDIAN);
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a jongsung index");
+        }
+        short version = buffer.getShort(4);
+        if (version != VERSION) {
+            throw new IOException("unsupported jongsung index version: " + version);
+        }
+
+        int bucketBits = buffer.get(6);
+        int count = buffer.getInt(8);
+        if (bucketBits < 0 || bucketBits > MAX_BUCKET_BITS || count < 0) {
+            throw new IOException("invalid jongsung index header");
+        }
+
+        JongSungIndex index = new JongSungIndex(buffer, bucketBits, count);
+        if (index.keysPosition > buffer.limit() || index.keysPosition + (long) index.getKeyOffset(count) * 2 > buffer.limit()) {
+            throw new IOException("truncated jongsung index");
+        }
+
+        return index;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // 없으면 NOT_FOUND
+    public int get(CharSequence text) {
+        return get(text, 0, text.length());
+    }
+
+    // text의 [start, end) 구간과 같은 이름을 찾는다.
+    public int get(CharSequence text, int start, int end) {
+        int bucket = bucketOf(hash(text, start, end), bucketBits);
+        int length = end - start;
+        int entryEnd = buffer.getInt(bucketsPosition + (bucket + 1) * 4);
+        for (int i = buffer.getInt(bucketsPosition + bucket * 4); i < entryEnd; ++i) {
+            int keyBegin = getKeyOffset(i);
+            if (getKeyOffset(i + 1) - keyBegin == length && equals(text, start, keyBegin, length)) {
+                return (buffer.get(valuesPosition + (i >> 2)) >> ((i & 3) * 2)) & 3;
+            }
+        }
+
+        return NOT_FOUND;
+    }
+
+    private int getKeyOffset(int i) {
+        return buffer.getInt(offsetsPosition + i * 4);
+    }
+
+    private boolean equals(CharSequence text, int start, int keyBegin, int length) {
+        int position = keysPosition + keyBegin * 2;
+        for (int i = 0; i < length; ++i) {
+            if (text.charAt(start + i) != buffer.getChar(position + i * 2)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // names[i]의 종성 유형을 계산해서 색인 파일로 저장한다. 판단할 수 없는 이름은 저장하지 않는다.
+    // josaFormatter에 이미 등록된 색인은 사용하지 않고 다시 계산한다.
+    public static void write(JosaFormatter josaFormatter, CharSequence[] names, OutputStream outputStream) throws IOException {
+        byte[] jongSungTypes = new byte[names.length];
+        josaFormatter.classifyAll(names, jongSungTypes, Runtime.getRuntime().availableProcessors(), false);
+        write(names, jongSungTypes, outputStream);
+    }
+
+    // 미리 계산한 종성 유형을 저장한다. (JosaFormatter.classifyAll() 결과)
+    // null 이거나 종성 유형이 0~2가 아닌 이름은 제외하고, 같은 이름이 여러번 있으면 처음 것을 사용한다.
+    public static void write(CharSequence[] names, byte[] jongSungTypes, OutputStream outputStream) throws IOException {
+        if (jongSungTypes.length < names.length) {
+            throw new IllegalArgumentException("jongSungTypes.length(" + jongSungTypes.length + ") < names.length(" + names.length + ")");
+        }
+
+        int bucketBits = 0;
+        while (bucketBits < MAX_BUCKET_BITS && (1 << bucketBits) < names.length) {
+            ++bucketBits;
+        }
+
+        ArrayList<Entry> entries = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; ++i) {
+            if (names[i] != null && jongSungTypes[i] >= 0 && jongSungTypes[i] <= 2) {
+                String key = names[i].toString();
+                entries.add(new Entry(key, jongSungTypes[i], bucketOf(hash(key, 0, key.length()), bucketBits), i));
+            }
+        }
+        Collections.sort(entries);
+
+        // 중복 제거
+        ArrayList<Entry> uniqueEntries = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            if (uniqueEntries.isEmpty() || !uniqueEntries.get(uniqueEntries.size() - 1).key.equals(entry.key)) {
+                uniqueEntries.add(entry);
+            }
+        }
+
+        int count = uniqueEntries.size();
+        int bucketCount = 1 << bucketBits;
+
+        // ByteBuffer 하나로 읽을 수 있는지 쓰기 전에 확인한다.
+        long keyLength = 0;
+        for (Entry entry : uniqueEntries) {
+            keyLength += entry.key.length();
+        }
+        long valuesPosition = HEADER_SIZE + (bucketCount + 1) * 4L + (count + 1) * 4L;
+        int valuesLength = (count + 3) / 4;
+        long keysPosition = valuesPosition + valuesLength + ((valuesPosition + valuesLength) & 1);
+        long fileSize = keysPosition + keyLength * 2;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("jongsung index too large: " + fileSize + " bytes");
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeByte(bucketBits);
+        out.writeByte(0);
+        out.writeInt(count);
+
+        int entryIndex = 0;
+        for (int bucket = 0; bucket <= bucketCount; ++bucket) {
+            while (entryIndex < count && uniqueEntries.get(entryIndex).bucket < bucket) {
+                ++entryIndex;
+            }
+            out.writeInt(entryIndex);
+        }
+
+        int keyOffset = 0;
+        for (Entry entry : uniqueEntries) {
+            out.writeInt(keyOffset);
+            keyOffset += entry.key.length();
+        }
+        out.writeInt(keyOffset);
+
+        for (int i = 0; i < valuesLength; ++i) {
+            int value = 0;
+            for (int j = 0; j < 4 && i * 4 + j < count; ++j) {
+                value |= uniqueEntries.get(i * 4 + j).jongSungType << (j * 2);
+            }
+            out.writeByte(value);
+        }
+        if (((valuesPosition + valuesLength) & 1) != 0) {
+            out.writeByte(0);
+        }
+
+        for (Entry entry : uniqueEntries) {
+            out.writeChars(entry.key);
+        }
+        out.flush();
+    }
+
+    private static int align2(int position) {
+        return (position + 1) & ~1;
+    }
+
+    // String.hashCode()와 같은 값을 문자열을 만들지 않고 계산한다.
+    private static int hash(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; ++i) {
+            hash = 31 * hash + text.charAt(i);
+        }
+
+        return hash;
+    }
+
+    private static int bucketOf(int hash, int bucketBits) {
+        if (bucketBits == 0) {
+            return 0;
+        }
+
+        // 하위 bit가 고르게 퍼지지 않는 hash를 섞어서 상위 bit를 사용한다.
+        return (hash * 0x9E3779B9) >>> (32 - bucketBits);
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        final String key;
+        final int jongSungType;
+        final int bucket;
+        final int order;
+
+        Entry(String key, int jongSungType, int bucket, int order) {
+            this.key = key;
+            this.jongSungType = jongSungType;
+            this.bucket = bucket;
+            this.order = order;
+        }
+
+        // bucket, key, 입력 순서
+        @Override
+        public int compareTo(Entry entry) {
+            if (bucket != entry.bucket) {
+                return bucket < entry.bucket ? -1 : 1;
+            }
+            int result = key.compareTo(entry.key);
+            if (result != 0) {
+                return result;
+            }
+
+            return order < entry.order ? -1 : (order == entry.order ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.util.Arrays;
+import java.util.List;
+
+// 조사 목록을 하나의 trie로 컴파일한 것. 조사 수와 관계 없이 문자열을 한번만 읽어서 조사를 찾는다.
+// 생성 이후에는 변경되지 않으므로 여러 쓰레드에서 공유할 수 있다.
+final class JosaAutomaton {
+    private final State root = new State();
+
+    JosaAutomaton(List<Pair<String, String>> josaPairs) {
+        for (Pair<String, String> josaPair : josaPairs) {
+            add(josaPair.first, josaPair);
+            add(josaPair.second, josaPair);
+        }
+    }
+
+    private void add(String josa, Pair<String, String> josaPair) {
+        State state = root;
+        for (int i = 0; i < josa.length(); ++i) {
+            state = state.next(josa.charAt(i), true);
+        }
+
+        if (state.josa != null) {
+            throw new IllegalArgumentException("duplicated josa: " + josa);
+        }
+        state.josa = josa;
+        state.josaPair = josaPair;
+        state.match = new JosaFormatter.JosaMatch(josaPair, 0, josa);
+    }
+
+    // str의 begin 위치에서 시작하고 바로 뒤가 조사의 끝으로 인정되는 가장 긴 조사. 없으면 null
+    // ex) "으로서 " -> "으로서", "이나 " -> "이나" ("이"는 뒤에 '나'가 있으므로 조사가 아님)
+    JosaFormatter.JosaMatch match(JosaFormatter josaFormatter, CharSequence str, int begin) {
+        State state = root;
+        State matched = null;
+        int length = str.length();
+        for (int i = begin; i < length; ) {
+            state = state.next(str.charAt(i), false);
+            if (state == null) {
+                break;
+            }
+            ++i;
+            if (state.josa != null && josaFormatter.isJosaEnd(str, i)) {
+                matched = state;
+            }
+        }
+
+        if (matched == null) {
+            return null;
+        }
+
+        // 문자열 맨 앞인 경우는 미리 만들어둔 JosaMatch를 사용한다.
+        return begin == 0 ? matched.match : new JosaFormatter.JosaMatch(matched.josaPair, begin, matched.josa);
+    }
+
+    private static final class State {
+        private char[] chars = new char[0];
+        private State[] nextStates = new State[0];
+
+        // 조사가 끝나는 상태인 경우
+        private String josa;
+        private Pair<String, String> josaPair;
+        private JosaFormatter.JosaMatch match;
+
+        State next(char ch, boolean create) {
+            for (int i = 0; i < chars.length; ++i) {
+                if (chars[i] == ch) {
+                    return nextStates[i];
+                }
+            }
+
+            if (!create) {
+                return null;
+            }
+
+            State state = new State();
+            chars = Arrays.copyOf(chars, chars.length + 1);
+            nextStates = Arrays.copyOf(nextStates, nextStates.length + 1);
+            chars[chars.length - 1] = ch;
+            nextStates[nextStates.length - 1] = state;
+            return state;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.b1uec0in.josaformatter;
+
+// 인자로 사용되는 객체(상품, 매장, 사용자 등)가 미리 계산해 둔 종성 유형을 제공한다.
+// %s, {0} 처럼 문자열 그대로 형식화되는 경우 읽기 규칙과 JongSungDetector를 거치지 않고 이 값을 그대로 사용한다.
+// 저장할 때 JosaText.getJongSungTypes()로 한번에 계산해 두고 사용한다.
+// ex) class Product implements JosaAware {
+//         public int getJongSungType() { return nameJongSungType; }
+//         public String getJosaText() { return name; }
+//     }
+public interface JosaAware {
+    // 0: 종성 없음. 1: 종성 있음. 2: 종성이 'ㄹ'임. -1: 알 수 없음 (JongSungDetector로 판단)
+    int getJongSungType();
+
+    // 형식화할 문자열. null이면 toString()을 사용한다.
+    String getJosaText();
+}
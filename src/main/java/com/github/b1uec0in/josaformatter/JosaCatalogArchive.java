@@ -0,0 +1,209 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// 컴파일된 메시지 목록의 바이너리 형식.
+// 읽을 때 정규식 분석이나 조사 검색을 하지 않도록 문자열 pool, segment 목록, 조사 위치를 모두 저장한다.
+//
+// int     magic ("JOSA")
+// short   version
+// byte    syntax
+// int     locale (string index)
+// int     string count, [int byte length, UTF-8 bytes] ...
+// int     josa pair count, [int first (string index), int second (string index)] ...
+// int     template count, [int key, int pattern, int segment count, segment ...] ...
+//   segment: byte 0 (text)    , int text, int josa pair index (-1: 없음), int josa offset, int josa
+//            byte 1 (argument), int argument index, int spec
+class JosaCatalogArchive {
+    private static final int MAGIC = 0x4A4F5341;
+    private static final short VERSION = 1;
+
+    private static final byte SEGMENT_TEXT = 0;
+    private static final byte SEGMENT_ARGUMENT = 1;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    public static void write(JosaMessageCatalog catalog, OutputStream outputStream) throws IOException {
+        StringPool stringPool = new StringPool();
+        ArrayList<Pair<String, String>> josaPairs = new ArrayList<>();
+        HashMap<Pair<String, String>, Integer> josaPairIndexes = new HashMap<>();
+
+        ByteArrayOutputStream templateBytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(templateBytes);
+
+        out.writeInt(catalog.templates.size());
+        for (Map.Entry<String, JosaTemplate> entry : catalog.templates.entrySet()) {
+            JosaTemplate template = entry.getValue();
+            out.writeInt(stringPool.indexOf(entry.getKey()));
+            out.writeInt(stringPool.indexOf(template.getPattern()));
+            out.writeInt(template.segments.length);
+            for (JosaTemplate.Segment segment : template.segments) {
+                if (segment.isArgument()) {
+                    out.writeByte(SEGMENT_ARGUMENT);
+                    out.writeInt(segment.argument.index);
+                    out.writeInt(stringPool.indexOf(segment.argument.spec));
+                } else {
+                    out.writeByte(SEGMENT_TEXT);
+                    out.writeInt(stringPool.indexOf(segment.text));
+
+                    JosaFormatter.JosaMatch josaMatch = segment.josaMatch;
+                    if (josaMatch != null) {
+                        Integer josaPairIndex = josaPairIndexes.get(josaMatch.josaPair);
+                        if (josaPairIndex == null) {
+                            josaPairIndex = josaPairs.size();
+                            josaPairs.add(josaMatch.josaPair);
+                            josaPairIndexes.put(josaMatch.josaPair, josaPairIndex);
+                        }
+                        out.writeInt(josaPairIndex);
+                        out.writeInt(josaMatch.index);
+                        out.writeInt(stringPool.indexOf(josaMatch.josa));
+                    } else {
+                        out.writeInt(-1);
+                        out.writeInt(0);
+                        out.writeInt(-1);
+                    }
+                }
+            }
+        }
+        out.flush();
+
+        int localeIndex = stringPool.indexOf(catalog.getLocale() != null ? catalog.getLocale().toLanguageTag() : "");
+        for (Pair<String, String> josaPair : josaPairs) {
+            stringPool.indexOf(josaPair.first);
+            stringPool.indexOf(josaPair.second);
+        }
+
+        DataOutputStream header = new DataOutputStream(outputStream);
+        header.writeInt(MAGIC);
+        header.writeShort(VERSION);
+        header.writeByte(catalog.getSyntax().ordinal());
+        header.writeInt(localeIndex);
+
+        header.writeInt(stringPool.strings.size());
+        for (String str : stringPool.strings) {
+            byte[] bytes = str.getBytes(UTF_8);
+            header.writeInt(bytes.length);
+            header.write(bytes);
+        }
+
+        header.writeInt(josaPairs.size());
+        for (Pair<String, String> josaPair : josaPairs) {
+            header.writeInt(stringPool.indexOf(josaPair.first));
+            header.writeInt(stringPool.indexOf(josaPair.second));
+        }
+
+        templateBytes.writeTo(header);
+        header.flush();
+    }
+
+    // 한번에 모두 읽은 다음 분석한다.
+    public static JosaMessageCatalog read(JosaFormatter josaFormatter, InputStream inputStream) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(inputStream.available(), 4096));
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = inputStream.read(buffer)) > 0) {
+            bytes.write(buffer, 0, read);
+        }
+
+        return read(josaFormatter, ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    // byteBuffer의 현재 위치부터 읽는다. byteBuffer의 위치와 byte order는 변경하지 않는다.
+    public static JosaMessageCatalog read(JosaFormatter josaFormatter, ByteBuffer byteBuffer) throws IOException {
+        ByteBuffer in = byteBuffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        if (in.getInt() != MAGIC) {
+            throw new IOException("not a josa catalog archive");
+        }
+        short version = in.getShort();
+        if (version != VERSION) {
+            throw new IOException("unsupported josa catalog archive version: " + version);
+        }
+
+        JosaMessageCatalog.Syntax syntax = JosaMessageCatalog.Syntax.values()[in.get()];
+        int localeIndex = in.getInt();
+
+        String[] strings = new String[in.getInt()];
+        for (int i = 0; i < strings.length; ++i) {
+            int length = in.getInt();
+            if (in.hasArray()) {
+                strings[i] = new String(in.array(), in.arrayOffset() + in.position(), length, UTF_8);
+                in.position(in.position() + length);
+            } else {
+                byte[] bytes = new byte[length];
+                in.get(bytes);
+                strings[i] = new String(bytes, UTF_8);
+            }
+        }
+
+        String localeTag = strings[localeIndex];
+        Locale locale = localeTag.isEmpty() ? null : Locale.forLanguageTag(localeTag);
+
+        int josaPairCount = in.getInt();
+        ArrayList<Pair<String, String>> josaPairs = new ArrayList<>(josaPairCount);
+        for (int i = 0; i < josaPairCount; ++i) {
+            josaPairs.add(new Pair<>(strings[in.getInt()], strings[in.getInt()]));
+        }
+
+        int templateCount = in.getInt();
+        HashMap<String, JosaTemplate> templates = new HashMap<>(templateCount * 4 / 3 + 1);
+        ArrayList<JosaTemplate.Segment> segments = new ArrayList<>();
+        for (int i = 0; i < templateCount; ++i) {
+            String key = strings[in.getInt()];
+            String pattern = strings[in.getInt()];
+            int segmentCount = in.getInt();
+
+            segments.clear();
+            for (int j = 0; j < segmentCount; ++j) {
+                byte segmentType = in.get();
+                if (segmentType == SEGMENT_ARGUMENT) {
+                    int argIndex = in.getInt();
+                    String spec = strings[in.getInt()];
+                    JosaTemplate.Argument argument = syntax == JosaMessageCatalog.Syntax.MESSAGE_FORMAT
+                            ? JosaMessageFormat.createArgument(josaFormatter, locale, argIndex, spec)
+                            : JosaFormatTemplate.createArgument(argIndex, locale, spec);
+                    segments.add(new JosaTemplate.Segment(argument));
+                } else {
+                    String text = strings[in.getInt()];
+                    int josaPairIndex = in.getInt();
+                    int josaOffset = in.getInt();
+                    int josaIndex = in.getInt();
+                    JosaFormatter.JosaMatch josaMatch = josaPairIndex >= 0 ? new JosaFormatter.JosaMatch(josaPairs.get(josaPairIndex), josaOffset, strings[josaIndex]) : null;
+                    segments.add(new JosaTemplate.Segment(text, josaMatch));
+                }
+            }
+
+            JosaTemplate template = syntax == JosaMessageCatalog.Syntax.MESSAGE_FORMAT
+                    ? JosaMessageFormat.create(josaFormatter, locale, pattern, segments)
+                    : JosaFormatTemplate.create(josaFormatter, locale, pattern, segments);
+            templates.put(key, template);
+        }
+
+        return new JosaMessageCatalog(locale, syntax, templates);
+    }
+
+    private static class StringPool {
+        final ArrayList<String> strings = new ArrayList<>();
+        final HashMap<String, Integer> indexes = new HashMap<>();
+
+        int indexOf(String str) {
+            Integer index = indexes.get(str);
+            if (index == null) {
+                index = strings.size();
+                strings.add(str);
+                indexes.put(str, index);
+            }
+            return index;
+        }
+    }
+}
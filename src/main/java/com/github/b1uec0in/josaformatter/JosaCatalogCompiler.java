@@ -0,0 +1,144 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// .properties 메시지 목록을 빌드할 때 미리 컴파일해서 바이너리 파일(.josa)로 저장한다. (build.gradle의 compileMessageCatalogs)
+// 실행 시에는 JosaMessageCatalog.loadCompiled()로 읽는다.
+//
+// usage: JosaCatalogCompiler [--syntax FORMAT|MESSAGE_FORMAT] [--locale ko] <input dir> <output dir>
+public class JosaCatalogCompiler {
+    public static final String EXTENSION = ".josa";
+
+    public static void main(String[] args) throws IOException {
+        JosaMessageCatalog.Syntax syntax = JosaMessageCatalog.Syntax.FORMAT;
+        Locale locale = Locale.KOREAN;
+        ArrayList<String> paths = new ArrayList<>();
+
+        for (int i = 0; i < args.length; ++i) {
+            if (args[i].equals("--syntax") && i + 1 < args.length) {
+                syntax = JosaMessageCatalog.Syntax.valueOf(args[++i]);
+            } else if (args[i].equals("--locale") && i + 1 < args.length) {
+                locale = Locale.forLanguageTag(args[++i]);
+            } else {
+                paths.add(args[i]);
+            }
+        }
+
+        if (paths.size() != 2) {
+            System.err.println("usage: JosaCatalogCompiler [--syntax FORMAT|MESSAGE_FORMAT] [--locale ko] <input dir> <output dir>");
+            System.exit(2);
+            return;
+        }
+
+        List<String> errors = compileDirectory(KoreanUtils.createDefaultJosaFormatter(), locale, syntax, new File(paths.get(0)), new File(paths.get(1)));
+        if (!errors.isEmpty()) {
+            for (String error : errors) {
+                System.err.println(error);
+            }
+            System.exit(1);
+        }
+    }
+
+    // 오류 목록을 반환한다. 오류가 있는 파일은 저장하지 않는다.
+    public static List<String> compileDirectory(JosaFormatter josaFormatter, Locale locale, JosaMessageCatalog.Syntax syntax, File inputDir, File outputDir) throws IOException {
+        ArrayList<String> errors = new ArrayList<>();
+        File[] files = inputDir.listFiles();
+        if (files == null) {
+            return errors;
+        }
+
+        for (File file : files) {
+            if (file.isDirectory()) {
+                errors.addAll(compileDirectory(josaFormatter, locale, syntax, file, new File(outputDir, file.getName())));
+                continue;
+            }
+
+            String name = file.getName();
+            if (!name.endsWith(".properties")) {
+                continue;
+            }
+
+            JosaMessageCatalog catalog;
+            InputStream inputStream = new FileInputStream(file);
+            try {
+                catalog = JosaMessageCatalog.load(josaFormatter, locale, inputStream, syntax, Runtime.getRuntime().availableProcessors());
+            } catch (IllegalArgumentException e) {
+                errors.add(file.getPath() + ": " + e.getMessage());
+                continue;
+            } finally {
+                inputStream.close();
+            }
+
+            List<String> catalogErrors = validate(josaFormatter, catalog);
+            if (!catalogErrors.isEmpty()) {
+                for (String error : catalogErrors) {
+                    errors.add(file.getPath() + ": " + error);
+                }
+                continue;
+            }
+
+            if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+                throw new IOException("can't create directory: " + outputDir);
+            }
+
+            File outputFile = new File(outputDir, name.substring(0, name.length() - ".properties".length()) + EXTENSION);
+            OutputStream outputStream = new FileOutputStream(outputFile);
+            try {
+                catalog.writeCompiled(outputStream);
+            } finally {
+                outputStream.close();
+            }
+        }
+
+        return errors;
+    }
+
+    // 실행 시에 교정할 수 없는 조사를 찾는다.
+    // 인자 뒤에 기호가 있고 그 뒤에 조사가 있는 경우 ex) "%s%%를", "{0}.은"
+    // 템플릿 맨 앞은 지시어 '이'와 구분할 수 없으므로 검사하지 않는다. ex) "이 파일을 삭제할까요?"
+    // 조사 쌍을 함께 적은 문자열은 교정하지 않아도 되므로 검사하지 않는다. ex) "%s(이)가", "%s을(를)"
+    public static List<String> validate(JosaFormatter josaFormatter, JosaMessageCatalog catalog) {
+        ArrayList<String> errors = new ArrayList<>();
+
+        // 키 순서로 출력
+        TreeMap<String, JosaTemplate> templates = new TreeMap<>(catalog.templates);
+        for (Map.Entry<String, JosaTemplate> entry : templates.entrySet()) {
+            JosaTemplate.Segment[] segments = entry.getValue().segments;
+            for (int i = 0; i < segments.length; ++i) {
+                JosaTemplate.Segment segment = segments[i];
+                if (i == 0 || segment.isArgument()) {
+                    continue;
+                }
+
+                if (segment.josaMatch == null) {
+                    String text = segment.text;
+                    int begin = 0;
+                    while (begin < text.length()) {
+                        char ch = text.charAt(begin);
+                        if (Character.isLetterOrDigit(ch) || Character.isWhitespace(ch) || josaFormatter.isEndSkipText(ch)
+                                || JosaFormatter.isJosaPairText(text, begin)) {
+                            break;
+                        }
+                        ++begin;
+                    }
+
+                    if (begin > 0 && josaFormatter.findJosa(text.substring(begin)) != null) {
+                        errors.add(entry.getKey() + ": josa after non-argument text \"" + text.substring(0, begin) + "\": \"" + entry.getValue().getPattern() + "\"");
+                    }
+                }
+            }
+        }
+
+        return errors;
+    }
+}
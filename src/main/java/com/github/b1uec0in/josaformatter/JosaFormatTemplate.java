@@ -0,0 +1,425 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.text.DateFormatSymbols;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Formattable;
+import java.util.List;
+import java.util.Locale;
+import java.util.MissingFormatArgumentException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// String.format 문법(%s, %1$s, %<s, ...)을 미리 컴파일한 조사 교정 템플릿.
+// ex) josaFormatter.getTemplate(Locale.KOREAN, "%s를 %s으로 변경할까요?").format("아이폰", "Galaxy");
+public final class JosaFormatTemplate extends JosaTemplate {
+
+    // 't', 'T' (date/time) conversion은 suffix까지 포함한다. ex) %tY, %1$tm
+    private static final Pattern formatPattern = Pattern.compile("%(\\d+\\$|<)?([-#+ 0,(]*)?(\\d+)?(\\.\\d+)?([bBhHsScCdoxXeEfgGaA%n]|[tT][HIklMSLNpzZsQBbhAaCYyjmdeRTrDFc])");
+
+    private JosaFormatTemplate(JosaFormatter josaFormatter, Locale locale, String pattern, List<Segment> segments, boolean locateJosa) {
+        super(josaFormatter, locale, pattern, segments, locateJosa);
+    }
+
+    // 조사 위치가 이미 지정된 segment로 생성. (JosaCatalogArchive)
+    static JosaFormatTemplate create(JosaFormatter josaFormatter, Locale locale, String pattern, List<Segment> segments) {
+        return new JosaFormatTemplate(josaFormatter, locale, pattern, segments, false);
+    }
+
+    static Argument createArgument(int index, Locale locale, String spec) {
+        char conversion = Character.toLowerCase(spec.charAt(spec.length() - 2));
+        if (spec.length() >= 3 && conversion == 't') {
+            return new DateTimeArgument(index, locale, spec);
+        }
+
+        return new FormatArgument(index, locale, spec);
+    }
+
+    public static JosaFormatTemplate compile(JosaFormatter josaFormatter, Locale locale, String format) {
+        return new JosaFormatTemplate(josaFormatter, locale, format, parse(locale, format), true);
+    }
+
+    // 문자열과 인자 segment로 나눈다. %%, %n은 문자열에 포함한다. (JosaFormatter.parseFormat()에서도 사용)
+    static List<Segment> parse(Locale locale, String format) {
+        ArrayList<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+
+        Matcher matcher = formatPattern.matcher(format);
+
+        int prevMatcherEnd = 0;
+        int argIndex = 0;
+        int lastArgIndex = -1;
+        while (matcher.find()) {
+            literal.append(format, prevMatcherEnd, matcher.start());
+            prevMatcherEnd = matcher.end();
+
+            String indexString = matcher.group(1);
+            String conversion = matcher.group(5);
+
+            if (conversion.equals("%")) {
+                literal.append('%');
+                continue;
+            }
+            if (conversion.equals("n")) {
+                literal.append(System.getProperty("line.separator"));
+                continue;
+            }
+
+            int index;
+            String singleFormat;
+            if (indexString != null) {
+                if (indexString.equals("<")) { // previous format specifier index
+                    if (lastArgIndex < 0) {
+                        throw new MissingFormatArgumentException(matcher.group());
+                    }
+                    index = lastArgIndex;
+                } else { // argument position indexing
+                    index = Integer.parseInt(indexString.substring(0, indexString.length() - 1)) - 1;
+                    if (index < 0) {
+                        throw new MissingFormatArgumentException(matcher.group());
+                    }
+                    lastArgIndex = index;
+                }
+
+                // remove indexString
+                singleFormat = format.substring(matcher.start(0), matcher.start(1)) + format.substring(matcher.end(1), matcher.end(0));
+            } else { // relative indexing
+                index = argIndex++;
+                lastArgIndex = index;
+                singleFormat = matcher.group();
+            }
+
+            if (literal.length() > 0) {
+                segments.add(new Segment(literal.toString()));
+                literal.setLength(0);
+            }
+            segments.add(new Segment(createArgument(index, locale, singleFormat)));
+        }
+
+        literal.append(format, prevMatcherEnd, format.length());
+        if (literal.length() > 0) {
+            segments.add(new Segment(literal.toString()));
+        }
+
+        return segments;
+    }
+
+    static final class FormatArgument extends Argument {
+        private static final int TYPE_GENERAL = 0;
+        private static final int TYPE_STRING = 1; // %s
+        private static final int TYPE_DECIMAL = 2; // %d
+
+        private final Locale locale;
+        private final int type;
+
+        FormatArgument(int index, Locale locale, String format) {
+            super(index, format);
+            this.locale = locale;
+
+            // 가장 많이 사용되는 %s, %d 는 String.format을 거치지 않는다.
+            if (format.equals("%s")) {
+                type = TYPE_STRING;
+            } else if (format.equals("%d") && (locale == null || DecimalFormatSymbols.getInstance(locale).getZeroDigit() == '0')) {
+                type = TYPE_DECIMAL;
+            } else {
+                type = TYPE_GENERAL;
+            }
+        }
+
+        @Override
+        String format(Object[] args) {
+            if (args == null || index >= args.length) {
+                throw new MissingFormatArgumentException(spec);
+            }
+
+            Object arg = args[index];
+            switch (type) {
+                case TYPE_STRING:
+                    if (arg == null) {
+                        return "null";
+                    }
+                    if (arg instanceof String) {
+                        return (String) arg;
+                    }
+                    if (arg instanceof JosaAware) {
+                        String text = ((JosaAware) arg).getJosaText();
+                        if (text != null) {
+                            return text;
+                        }
+                    }
+                    if (!(arg instanceof Formattable)) {
+                        return arg.toString();
+                    }
+                    break;
+                case TYPE_DECIMAL:
+                    if (arg instanceof Integer || arg instanceof Long || arg instanceof Short || arg instanceof Byte) {
+                        return arg.toString();
+                    }
+                    break;
+            }
+
+            return String.format(locale, spec, arg);
+        }
+
+        @Override
+        Object getPlainArgument(Object[] args) {
+            if (type == TYPE_STRING && args != null && index < args.length) {
+                return args[index];
+            }
+            return null;
+        }
+
+        @Override
+        void formatTo(StringBuilder sb, Object[] args, JosaRenderContext context) {
+            if (args != null && index < args.length) {
+                Object arg = args[index];
+                switch (type) {
+                    case TYPE_STRING:
+                        if (arg == null || arg instanceof String) {
+                            sb.append((String) arg);
+                            return;
+                        }
+                        if (arg instanceof JosaAware) {
+                            break;
+                        }
+                        if (arg instanceof CharSequence && !(arg instanceof Formattable)) {
+                            sb.append((CharSequence) arg);
+                            return;
+                        }
+                        break;
+                    case TYPE_DECIMAL:
+                        if (arg instanceof Long) {
+                            sb.append(((Long) arg).longValue());
+                            return;
+                        }
+                        if (arg instanceof Integer || arg instanceof Short || arg instanceof Byte) {
+                            sb.append(((Number) arg).intValue());
+                            return;
+                        }
+                        break;
+                }
+            }
+
+            sb.append(format(args));
+        }
+    }
+
+    // 날짜, 시간 conversion (%tY, %tm, %tB, ...)
+    // flag, 폭이 없고 Date, Calendar, Long 인자인 경우는 Formatter를 만들지 않고 직접 출력한다.
+    // 월, 요일 이름 등은 생성할 때 한번만 읽어 두고, Calendar는 인자마다 하나를 재사용한다. (동시에 사용 중이면 새로 만든다)
+    // 템플릿이 Locale, 형식 문자열 별로 캐시되므로 Locale, 형식 별로 한번만 준비한다.
+    // Calendar는 처음 만들 때의 기본 시간대를 사용한다.
+    static final class DateTimeArgument extends Argument {
+        private final Locale locale;
+
+        // String.format과 같이 Locale이 null이면 Locale.US
+        private final Locale calendarLocale;
+
+        // 직접 출력할 수 없으면 '\0'
+        private final char conversion;
+
+        private final String[] months;
+        private final String[] shortMonths;
+        private final String[] weekdays;
+        private final String[] shortWeekdays;
+        private final String[] amPm;
+
+        private final AtomicReference<Calendar> calendarCache = new AtomicReference<>();
+
+        DateTimeArgument(int index, Locale locale, String format) {
+            super(index, format);
+            this.locale = locale;
+
+            // %tZ, %tc는 시간대 이름, %T는 대문자 변환이 필요하므로 String.format을 사용한다.
+            char conversion = format.charAt(format.length() - 1);
+            boolean isSimple = format.length() == 3 && format.charAt(1) == 't' && conversion != 'Z' && conversion != 'c'
+                    && (locale == null || DecimalFormatSymbols.getInstance(locale).getZeroDigit() == '0');
+            this.conversion = isSimple ? conversion : '\0';
+            calendarLocale = locale != null ? locale : Locale.US;
+
+            DateFormatSymbols symbols = DateFormatSymbols.getInstance(calendarLocale);
+            months = symbols.getMonths();
+            shortMonths = symbols.getShortMonths();
+            weekdays = symbols.getWeekdays();
+            shortWeekdays = symbols.getShortWeekdays();
+            amPm = symbols.getAmPmStrings();
+            for (int i = 0; i < amPm.length; ++i) {
+                amPm[i] = amPm[i].toLowerCase(calendarLocale);
+            }
+        }
+
+        @Override
+        String format(Object[] args) {
+            if (args == null || index >= args.length) {
+                throw new MissingFormatArgumentException(spec);
+            }
+
+            Object arg = args[index];
+            if (conversion == '\0' || !(arg instanceof Date || arg instanceof Calendar || arg instanceof Long)) {
+                return String.format(locale, spec, arg);
+            }
+
+            StringBuilder sb = new StringBuilder(16);
+            formatTo(sb, args, null);
+            return sb.toString();
+        }
+
+        @Override
+        void formatTo(StringBuilder sb, Object[] args, JosaRenderContext context) {
+            Object arg = args != null && index < args.length ? args[index] : null;
+            if (conversion == '\0' || !(arg instanceof Date || arg instanceof Calendar || arg instanceof Long)) {
+                sb.append(format(args));
+                return;
+            }
+
+            if (arg instanceof Calendar) {
+                print(sb, (Calendar) arg, conversion);
+                return;
+            }
+
+            Calendar calendar = calendarCache.getAndSet(null);
+            if (calendar == null) {
+                calendar = Calendar.getInstance(calendarLocale);
+            }
+            calendar.setTimeInMillis(arg instanceof Date ? ((Date) arg).getTime() : (Long) arg);
+            print(sb, calendar, conversion);
+            calendarCache.set(calendar);
+        }
+
+        // java.util.Formatter와 같은 결과
+        private void print(StringBuilder sb, Calendar calendar, char conversion) {
+            switch (conversion) {
+                case 'H':
+                    appendPadded(sb, calendar.get(Calendar.HOUR_OF_DAY), 2);
+                    break;
+                case 'I':
+                    appendPadded(sb, to12Hour(calendar), 2);
+                    break;
+                case 'k':
+                    sb.append(calendar.get(Calendar.HOUR_OF_DAY));
+                    break;
+                case 'l':
+                    sb.append(to12Hour(calendar));
+                    break;
+                case 'M':
+                    appendPadded(sb, calendar.get(Calendar.MINUTE), 2);
+                    break;
+                case 'S':
+                    appendPadded(sb, calendar.get(Calendar.SECOND), 2);
+                    break;
+                case 'L':
+                    appendPadded(sb, calendar.get(Calendar.MILLISECOND), 3);
+                    break;
+                case 'N':
+                    appendPadded(sb, calendar.get(Calendar.MILLISECOND) * 1000000L, 9);
+                    break;
+                case 'p':
+                    sb.append(amPm[calendar.get(Calendar.AM_PM)]);
+                    break;
+                case 'z': {
+                    int offset = (calendar.get(Calendar.ZONE_OFFSET) + calendar.get(Calendar.DST_OFFSET)) / 60000;
+                    sb.append(offset < 0 ? '-' : '+');
+                    offset = Math.abs(offset);
+                    appendPadded(sb, offset / 60 * 100 + offset % 60, 4);
+                    break;
+                }
+                case 's':
+                    sb.append(calendar.getTimeInMillis() / 1000);
+                    break;
+                case 'Q':
+                    sb.append(calendar.getTimeInMillis());
+                    break;
+                case 'B':
+                    sb.append(months[calendar.get(Calendar.MONTH)]);
+                    break;
+                case 'b':
+                case 'h':
+                    sb.append(shortMonths[calendar.get(Calendar.MONTH)]);
+                    break;
+                case 'A':
+                    sb.append(weekdays[calendar.get(Calendar.DAY_OF_WEEK)]);
+                    break;
+                case 'a':
+                    sb.append(shortWeekdays[calendar.get(Calendar.DAY_OF_WEEK)]);
+                    break;
+                case 'C':
+                    appendPadded(sb, calendar.get(Calendar.YEAR) / 100, 2);
+                    break;
+                case 'Y':
+                    appendPadded(sb, calendar.get(Calendar.YEAR), 4);
+                    break;
+                case 'y':
+                    appendPadded(sb, calendar.get(Calendar.YEAR) % 100, 2);
+                    break;
+                case 'j':
+                    appendPadded(sb, calendar.get(Calendar.DAY_OF_YEAR), 3);
+                    break;
+                case 'm':
+                    appendPadded(sb, calendar.get(Calendar.MONTH) + 1, 2);
+                    break;
+                case 'd':
+                    appendPadded(sb, calendar.get(Calendar.DAY_OF_MONTH), 2);
+                    break;
+                case 'e':
+                    sb.append(calendar.get(Calendar.DAY_OF_MONTH));
+                    break;
+                case 'R':
+                    print(sb, calendar, 'H');
+                    sb.append(':');
+                    print(sb, calendar, 'M');
+                    break;
+                case 'T':
+                    print(sb, calendar, 'R');
+                    sb.append(':');
+                    print(sb, calendar, 'S');
+                    break;
+                case 'r': {
+                    print(sb, calendar, 'I');
+                    sb.append(':');
+                    print(sb, calendar, 'M');
+                    sb.append(':');
+                    print(sb, calendar, 'S');
+                    sb.append(' ');
+                    // %Tp
+                    int start = sb.length();
+                    print(sb, calendar, 'p');
+                    for (int i = start; i < sb.length(); ++i) {
+                        sb.setCharAt(i, Character.toUpperCase(sb.charAt(i)));
+                    }
+                    break;
+                }
+                case 'D':
+                    print(sb, calendar, 'm');
+                    sb.append('/');
+                    print(sb, calendar, 'd');
+                    sb.append('/');
+                    print(sb, calendar, 'y');
+                    break;
+                case 'F':
+                    print(sb, calendar, 'Y');
+                    sb.append('-');
+                    print(sb, calendar, 'm');
+                    sb.append('-');
+                    print(sb, calendar, 'd');
+                    break;
+            }
+        }
+
+        private static int to12Hour(Calendar calendar) {
+            int hour = calendar.get(Calendar.HOUR);
+            return hour == 0 ? 12 : hour;
+        }
+
+        private static void appendPadded(StringBuilder sb, long value, int width) {
+            for (long limit = 10; --width > 0; limit *= 10) {
+                if (value < limit) {
+                    sb.append('0');
+                }
+            }
+            sb.append(value);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.github.b1uec0in.josaformatter;
 
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -14,17 +17,35 @@ import java.util.regex.Pattern;
 
 public class JosaFormatter {
     // 조사들을 종성이 있을 때와 없을 때 순서로 나열.
-    private static List<Pair<String, String>> josaPairs = Arrays.asList(
+    private static final List<Pair<String, String>> josaPairs = Arrays.asList(
             new Pair<>("은", "는"),
             new Pair<>("이", "가"),
             new Pair<>("을", "를"),
             new Pair<>("과", "와"),
-            new Pair<>("으로", "로")
+            new Pair<>("으로", "로"),
+            new Pair<>("이나", "나"),
+            new Pair<>("이랑", "랑"),
+            new Pair<>("이며", "며"),
+            new Pair<>("이든", "든"),
+            new Pair<>("이라고", "라고"),
+            new Pair<>("이다", "다"),
+            new Pair<>("아", "야"),
+            new Pair<>("이여", "여"),
+            new Pair<>("으로서", "로서"),
+            new Pair<>("으로써", "로써"),
+            new Pair<>("이에요", "예요")
     );
 
+    // 위 조사들을 한번에 찾기 위한 trie
+    private static final JosaAutomaton josaAutomaton = new JosaAutomaton(josaPairs);
+
+    // classifyAll()에서 쓰레드 하나가 맡을 최소 문자열 수
+    private static final int CLASSIFY_CHUNK_SIZE = 4096;
+
     // 종성(받침) 검사 필터. 순서대로 동작함.
-    private ArrayList<JongSungDetector> jongSungDetectors = new ArrayList<>(Arrays.asList(
+    private ArrayList<JongSungDetector> jongSungDetectors = new ArrayList<>(Arrays.<JongSungDetector>asList(
             new HangulJongSungDetector(),
+            new UnitJongSungDetector(),
             new EnglishCapitalJongSungDetector(),
             new EnglishJongSungDetector(),
             //new EnglishNumberJongSungDetector(), // 일반인이 영어+숫자인 경우 항상 숫자를 영어로 읽는 경우는 드물기 때문에 사용하지 않음.
@@ -44,6 +65,31 @@ public class JosaFormatter {
             new Pair<>("넘버", "number")
     ));
 
+    // addReadRule() 호출시 증가. JongSungCache 무효화에 사용.
+    private volatile int readingRulesVersion;
+
+    // 컴파일된 템플릿 캐시
+    private final TemplateCache templateCache = new TemplateCache();
+
+    // 인자 문자열 -> 종성 유형 캐시. 기본으로는 사용하지 않음.
+    private volatile JongSungCache jongSungCache;
+
+    // registerEnum(), registerLabels()로 등록한 상수 -> 종성 유형. 등록할 때마다 새로 만든다.
+    private volatile IdentityHashMap<Object, Integer> labelJongSungTypes;
+
+    // 이름 -> 종성 유형 색인 파일. 기본으로는 사용하지 않음.
+    private volatile JongSungIndex jongSungIndex;
+
+    // 통계 수집. 기본으로는 사용하지 않음.
+    private volatile JosaMetricsListener metricsListener;
+
+    // 이 횟수만큼 형식화한 템플릿은 전용 renderer를 만들어 사용한다. (JosaTemplate.specialize()) 0이면 사용하지 않음.
+    private volatile int specializationThreshold;
+
+    // 조사 앞에서 무시할 문자, 조사 뒤에 올 수 있는 문자
+    private volatile CharClass endSkipChars = CharClass.DEFAULT_END_SKIP;
+    private volatile CharClass josaBoundaryChars = CharClass.DEFAULT_JOSA_BOUNDARY;
+
     public ArrayList<JongSungDetector> getJongSungDetectors() {
         return jongSungDetectors;
     }
@@ -52,10 +98,167 @@ public class JosaFormatter {
         this.jongSungDetectors = jongSungDetectors;
     }
 
+    public JongSungCache getJongSungCache() {
+        return jongSungCache;
+    }
+
+    // null이면 캐시를 사용하지 않음
+    public void setJongSungCache(JongSungCache jongSungCache) {
+        this.jongSungCache = jongSungCache;
+    }
+
+    public JongSungIndex getJongSungIndex() {
+        return jongSungIndex;
+    }
+
+    // 읽기 규칙, JongSungCache, JongSungDetector보다 먼저 찾는다. null이면 사용하지 않음
+    public void setJongSungIndex(JongSungIndex jongSungIndex) {
+        this.jongSungIndex = jongSungIndex;
+    }
+
+    // enum 상수의 종성 유형을 미리 계산해 둔다. 형식화할 때 문자열 분석 없이 상수로 바로 찾는다.
+    // 등록 이후 읽기 규칙이나 JongSungDetector를 변경해도 다시 계산하지 않는다.
+    // ex) josaFormatter.registerEnum(OrderState.class);
+    //     josaFormatter.format("%s으로 변경되었습니다.", OrderState.SHIPPING);
+    public <E extends Enum<E>> void registerEnum(Class<E> enumClass) {
+        registerLabels((Object[]) enumClass.getEnumConstants());
+    }
+
+    // 자주 사용하는 상수 문자열(등급, 상태 이름 등)의 종성 유형을 미리 계산해 둔다. 같은 instance인 경우에만 사용한다.
+    public synchronized void registerLabels(Object... labels) {
+        IdentityHashMap<Object, Integer> labelJongSungTypes = this.labelJongSungTypes != null
+                ? new IdentityHashMap<>(this.labelJongSungTypes) : new IdentityHashMap<Object, Integer>();
+        for (Object label : labels) {
+            int jongSungType = getJongSungType(label.toString());
+            if (jongSungType >= 0) {
+                labelJongSungTypes.put(label, jongSungType);
+            }
+        }
+        this.labelJongSungTypes = labelJongSungTypes;
+    }
+
+    // 문자열 그대로 형식화하는 인자가 JosaAware이거나 등록한 상수이면 미리 계산한 종성 유형. 아니면 -1
+    int getPresetJongSungType(Object arg) {
+        if (arg == null) {
+            return -1;
+        }
+        if (arg instanceof JosaAware) {
+            // 범위를 벗어난 값은 isFirstJosa()와 같은 결과가 되도록 보정한다. 음수는 -1, 2보다 크면 2
+            int jongSungType = ((JosaAware) arg).getJongSungType();
+            return jongSungType < 0 ? -1 : Math.min(jongSungType, 2);
+        }
+
+        IdentityHashMap<Object, Integer> labelJongSungTypes = this.labelJongSungTypes;
+        if (labelJongSungTypes != null) {
+            Integer jongSungType = labelJongSungTypes.get(arg);
+            if (jongSungType != null) {
+                return jongSungType;
+            }
+        }
+
+        return -1;
+    }
+
+    public int getSpecializationThreshold() {
+        return specializationThreshold;
+    }
+
+    // 자주 사용하는 템플릿을 자동으로 specialize 한다. 0이면 사용하지 않음. (기본값)
+    // ex) josaFormatter.setSpecializationThreshold(1000);
+    public void setSpecializationThreshold(int specializationThreshold) {
+        this.specializationThreshold = Math.max(0, specializationThreshold);
+    }
+
+    public JosaMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    // null이면 통계를 수집하지 않음
+    public void setMetricsListener(JosaMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    public CharClass getEndSkipChars() {
+        return endSkipChars;
+    }
+
+    // 조사 앞에서 무시할 문자. 템플릿 캐시와 종성 캐시는 비워진다.
+    // 조사 위치는 템플릿을 컴파일할 때 정해지므로 getTemplate()으로 받아둔 템플릿과 JosaMessageCatalog는 다시 만들어야 한다.
+    public void setEndSkipChars(CharClass endSkipChars) {
+        this.endSkipChars = endSkipChars;
+        clearCaches();
+    }
+
+    public CharClass getJosaBoundaryChars() {
+        return josaBoundaryChars;
+    }
+
+    // 조사 뒤에 올 수 있는 문자. 템플릿 캐시는 비워진다. (setEndSkipChars() 참고)
+    public void setJosaBoundaryChars(CharClass josaBoundaryChars) {
+        this.josaBoundaryChars = josaBoundaryChars;
+        clearCaches();
+    }
+
+    private void clearCaches() {
+        templateCache.clear();
+        JongSungCache jongSungCache = this.jongSungCache;
+        if (jongSungCache != null) {
+            jongSungCache.clear();
+        }
+    }
+
     public String format(String format, Object... args) {
         return format(Locale.getDefault(), format, args);
     }
 
+    // java.text.MessageFormat 문법 지원. ex) "{0}을 {1}로 변경할까요?"
+    public String formatMessage(String pattern, Object... args) {
+        return formatMessage(Locale.getDefault(Locale.Category.FORMAT), pattern, args);
+    }
+
+    public String formatMessage(Locale l, String pattern, Object... args) {
+        return getMessageFormat(l, pattern).format(args);
+    }
+
+    // 컴파일된 MessageFormat 템플릿을 캐시에서 찾고, 없으면 컴파일해서 캐시에 추가한다.
+    public JosaMessageFormat getMessageFormat(Locale l, String pattern) {
+        JosaMessageFormat messageFormat = (JosaMessageFormat) templateCache.get(JosaMessageFormat.class, l, pattern);
+        if (messageFormat == null) {
+            messageFormat = JosaMessageFormat.compile(this, l, pattern);
+            templateCache.put(messageFormat);
+        }
+
+        return messageFormat;
+    }
+
+    public int getTemplateCacheMaxSize() {
+        return templateCache.getMaxSize();
+    }
+
+    public void setTemplateCacheMaxSize(int maxSize) {
+        templateCache.setMaxSize(maxSize);
+    }
+
+    public void clearTemplateCache() {
+        templateCache.clear();
+    }
+
+    public int getTemplateCacheSize() {
+        return templateCache.size();
+    }
+
+    public long getTemplateCacheHitCount() {
+        return templateCache.getHitCount();
+    }
+
+    public long getTemplateCacheMissCount() {
+        return templateCache.getMissCount();
+    }
+
+    public int getReadingRuleCount() {
+        return readingRules.size();
+    }
+
     public static class FormattedString {
         private String s;
         private boolean isFormatString;
@@ -75,196 +278,388 @@ public class JosaFormatter {
     }
 
 
-    // 't', 'T' (date/time) conversion are not supported
-    private static final String simpleFormatRegex = "%(\\d+\\$?\\<?)?([-#+ 0,(]*)?(\\d+)?(\\.\\d+)?([bBhHsScCdoxXeEfgGaAtT%])";
-
-    private static Pattern simpleFormatPattern = Pattern.compile(simpleFormatRegex);
-
+    // 형식 문자열을 문자열과 형식화된 인자로 나눈다. 컴파일된 템플릿(JosaFormatTemplate)과 같은 문법을 사용한다. (%tY 등 date/time 포함)
+    // %%, %n은 문자열에 포함된다.
     public static ArrayList<FormattedString> parseFormat(Locale locale, String format, Object[] args) {
         ArrayList<FormattedString> formattedStrings = new ArrayList<>();
+        for (JosaTemplate.Segment segment : JosaFormatTemplate.parse(locale, format)) {
+            if (segment.isArgument()) {
+                formattedStrings.add(new FormattedString(segment.argument.format(args), true));
+            } else {
+                formattedStrings.add(new FormattedString(segment.text, false));
+            }
+        }
 
-        Matcher matcher = simpleFormatPattern.matcher(format);
+        return formattedStrings;
+    }
 
-        int prevMatcherEnd = 0;
-        int argIndex = 0;
-        int lastArgIndex = -1;
-        while (matcher.find()) {
-            int start = matcher.start();
+    public String format(Locale l, String format, Object... args) {
+        return getTemplate(l, format).format(args);
+    }
 
-            if (start > prevMatcherEnd) {
-                String prevText = format.substring(prevMatcherEnd, start);
-                formattedStrings.add(new FormattedString(prevText, false));
-            }
-            String singleFormat = matcher.group();
+    // 컴파일된 String.format 템플릿을 캐시에서 찾고, 없으면 컴파일해서 캐시에 추가한다.
+    public JosaFormatTemplate getTemplate(Locale l, String format) {
+        JosaFormatTemplate template = (JosaFormatTemplate) templateCache.get(JosaFormatTemplate.class, l, format);
+        if (template == null) {
+            template = JosaFormatTemplate.compile(this, l, format);
+            templateCache.put(template);
+        }
 
-            int groupCount = matcher.groupCount();
+        return template;
+    }
 
-            if (groupCount == 5) {
-                String indexString = matcher.group(1);
-                String conversion = matcher.group(5);
+    // 조사 위치 정보. 템플릿을 미리 컴파일할 때 조사 검색 결과를 재사용하기 위해 사용.
+    public static class JosaMatch {
+        public final Pair<String, String> josaPair;
+        public final int index;
+        public final String josa;
 
-                if (conversion.equals("%")) {
-                    formattedStrings.add(new FormattedString(singleFormat, false));
-                } else {
-                    int index = -1;
-                    if (indexString != null && indexString.length() > 0) {
-
-                        if (indexString.equals("<")) { // previous format specifier index
-                            index = lastArgIndex;
-                        } else if (indexString.endsWith("$")) { // argument position indexing
-                            try {
-                                index = Integer.parseInt(indexString.substring(0, indexString.length() - 1)) - 1;
-                            } catch (Exception e) {
-                                index = 0;
-                            }
-                            lastArgIndex = index;
-                        }
+        public JosaMatch(Pair<String, String> josaPair, int index, String josa) {
+            this.josaPair = josaPair;
+            this.index = index;
+            this.josa = josa;
+        }
+    }
 
-                        // remove indexString
-                        singleFormat = format.substring(matcher.start(0), matcher.start(1)) + format.substring(matcher.end(1), matcher.end(0));
+    // 문자열 앞부분에서 교정 대상 조사를 찾는다. 없으면 null.
+    // 조사 앞에는 무시할 문자만 올 수 있고, 조사 뒤는 문자열의 끝이거나 josaBoundaryChars에 포함된 문자여야 한다.
+    public JosaMatch findJosa(String str) {
+        return findJosa((CharSequence) str);
+    }
 
-                    } else { // relative indexing
-                        index = argIndex++;
-                        lastArgIndex = index;
-                    }
+    public JosaMatch findJosa(CharSequence str) {
+        int begin = 0;
+        while (begin < str.length() && isEndSkipText(str.charAt(begin))) {
+            ++begin;
+        }
 
-                    String singleFormattedString = String.format(locale, singleFormat, args[index]);
-                    formattedStrings.add(new FormattedString(singleFormattedString, true));
-                }
-                prevMatcherEnd = matcher.end();
+        return josaAutomaton.match(this, str, begin);
+    }
+
+    // 조사 뒤에 올 수 있는 위치인지 여부
+    boolean isJosaEnd(CharSequence str, int index) {
+        return index >= str.length() || josaBoundaryChars.contains(str.charAt(index));
+    }
+
+    // 0: 종성 없음. 1: 종성 있음. 2: 종성이 'ㄹ'임. -1: 판단 불가
+    public int getJongSungType(String str) {
+        JongSungIndex jongSungIndex = this.jongSungIndex;
+        if (jongSungIndex != null) {
+            int jongSungType = jongSungIndex.get(str);
+            if (jongSungType != JongSungIndex.NOT_FOUND) {
+                return jongSungType;
             }
+        }
 
+        JongSungCache jongSungCache = this.jongSungCache;
+        if (jongSungCache == null) {
+            return detectJongSungType(str);
         }
 
-        if (format.length() > prevMatcherEnd) {
-            String prevText = format.substring(prevMatcherEnd);
-            formattedStrings.add(new FormattedString(prevText, false));
+        int generation = jongSungCache.getGeneration(readingRulesVersion, getJongSungDetectors());
+        int jongSungType = jongSungCache.get(str);
+        if (jongSungType == JongSungCache.NOT_FOUND) {
+            jongSungType = detectJongSungType(str);
+            jongSungCache.put(str, jongSungType, generation);
         }
 
-        return formattedStrings;
+        return jongSungType;
     }
 
-    public String format(Locale l, String format, Object... args) {
-        ArrayList<FormattedString> formattedStrings = parseFormat(l, format, args);
+    private int detectJongSungType(String str) {
+        String readText = getReadText(str);
 
-        int count = formattedStrings.size();
-        StringBuilder sb = new StringBuilder(formattedStrings.get(0).toString());
+        return detectJongSungType(readText, 0, readText.length());
+    }
 
-        if (count == 1) {
-            return sb.toString();
+    // 문자열을 만들지 않고 text의 [start, end) 구간을 검사한다.
+    // 읽기 규칙을 적용해야 하는 경우에만 복사한다. JongSungCache는 문자열 key가 필요하므로 사용하지 않는다.
+    public int getJongSungType(CharSequence text, int start, int end) {
+        return getJongSungType(text, start, end, null);
+    }
+
+    // context가 있으면 읽기 규칙을 적용할 때 context의 버퍼를 사용한다.
+    public int getJongSungType(CharSequence text, int start, int end, JosaRenderContext context) {
+        JongSungIndex jongSungIndex = this.jongSungIndex;
+        if (jongSungIndex != null) {
+            int jongSungType = jongSungIndex.get(text, start, end);
+            if (jongSungType != JongSungIndex.NOT_FOUND) {
+                return jongSungType;
+            }
         }
 
-        for (int i = 1; i < formattedStrings.size(); ++i) {
-            FormattedString formattedString = formattedStrings.get(i);
+        return getJongSungTypeWithoutIndex(text, start, end, context);
+    }
 
-            String str;
+    // JongSungIndex를 사용하지 않고 읽기 규칙과 JongSungDetector로 판단한다. (색인을 새로 만들 때)
+    private int getJongSungTypeWithoutIndex(CharSequence text, int start, int end, JosaRenderContext context) {
+        StringBuilder readText = applyReadingRules(text, start, end, context);
+        if (readText != null) {
+            text = readText;
+            start = 0;
+            end = readText.length();
+        }
 
-            if (!formattedString.isFormatString()) {
-                str = getJosaModifiedString(formattedStrings.get(i - 1).toString(), formattedString.toString());
-            } else {
-                str = formattedString.toString();
-            }
+        return detectJongSungType(text, start, getReadTextEnd(text, start, end));
+    }
 
-            sb.append(str);
+    // 종성 유형을 미리 계산해서 저장해 둘 때 사용. 결과는 getJongSungType()과 같다.
+    // 0: 종성 없음. 1: 종성 있음. 2: 종성이 'ㄹ'임. -1: 판단 불가
+    public int classify(CharSequence text) {
+        return getJongSungType(text, 0, text.length(), null);
+    }
+
+    // texts[i]의 종성 유형을 jongSungTypes[i]에 저장한다. null은 -1
+    public void classifyAll(CharSequence[] texts, byte[] jongSungTypes) {
+        classifyAll(texts, jongSungTypes, 1);
+    }
+
+    // parallelism이 1보다 크면 여러 쓰레드에서 나눠서 계산한다.
+    // 쓰레드마다 JosaRenderContext 하나를 재사용하므로 문자열마다 메모리를 할당하지 않는다. (String 기반 JongSungDetector 제외)
+    public void classifyAll(CharSequence[] texts, byte[] jongSungTypes, int parallelism) {
+        classifyAll(texts, jongSungTypes, parallelism, true);
+    }
+
+    // useJongSungIndex가 false이면 등록된 JongSungIndex를 무시한다. (JongSungIndex.write())
+    void classifyAll(final CharSequence[] texts, final byte[] jongSungTypes, int parallelism, final boolean useJongSungIndex) {
+        if (jongSungTypes.length < texts.length) {
+            throw new IllegalArgumentException("jongSungTypes.length(" + jongSungTypes.length + ") < texts.length(" + texts.length + ")");
         }
 
-        return sb.toString();
+        ParallelChunks.run(texts.length, Math.min(parallelism, texts.length / CLASSIFY_CHUNK_SIZE + 1), new ParallelChunks.Task() {
+            @Override
+            public void run(int begin, int end) {
+                classify(texts, jongSungTypes, begin, end, useJongSungIndex);
+            }
+        });
+    }
+
+    private void classify(CharSequence[] texts, byte[] jongSungTypes, int begin, int end, boolean useJongSungIndex) {
+        JosaRenderContext context = new JosaRenderContext();
+        for (int i = begin; i < end; ++i) {
+            CharSequence text = texts[i];
+            if (text == null) {
+                jongSungTypes[i] = -1;
+            } else if (useJongSungIndex) {
+                jongSungTypes[i] = (byte) getJongSungType(text, 0, text.length(), context);
+            } else {
+                jongSungTypes[i] = (byte) getJongSungTypeWithoutIndex(text, 0, text.length(), context);
+            }
+        }
     }
 
-    private static int indexOfJosa(String str, String josa) {
-        int index;
-        int searchFromIndex = 0;
-        int strLength = str.length();
-        int josaLength = josa.length();
-        do {
-            index = str.indexOf(josa, searchFromIndex);
+    private int detectJongSungType(CharSequence text, int start, int end) {
+        ArrayList<JongSungDetector> jongSungDetectors = getJongSungDetectors();
 
-            if (index >= 0) {
-                int josaNext = index + josaLength;
+        // String 기반 detector에 넘길 문자열. StringJongSungDetectorAdapter와 같지만 여러 detector가 한번 만든 문자열을 공유한다.
+        String str = null;
 
-                // 조사로 끝나거나 뒤에 공백이 있어야 함.
-                if (josaNext < strLength) {
-                    if (Character.isWhitespace(str.charAt(josaNext))) {
-                        return index;
-                    }
-                } else {
-                    return index;
+        // iterator를 만들지 않도록 index로 순회
+        for (int i = 0; i < jongSungDetectors.size(); ++i) {
+            JongSungDetector jongSungDetector = jongSungDetectors.get(i);
+            int jongSungType;
+            if (jongSungDetector instanceof TextJongSungDetector) {
+                TextJongSungDetector textJongSungDetector = (TextJongSungDetector) jongSungDetector;
+                if (!textJongSungDetector.canHandle(text, start, end)) {
+                    continue;
                 }
+                jongSungType = textJongSungDetector.getJongSungType(text, start, end);
             } else {
-                return -1;
+                if (str == null) {
+                    str = text.subSequence(start, end).toString();
+                }
+                if (!jongSungDetector.canHandle(str)) {
+                    continue;
+                }
+                jongSungType = jongSungDetector.getJongSungType(str);
             }
-            searchFromIndex = index + josaLength;
-        } while (searchFromIndex < strLength);
+
+            JosaMetricsListener metricsListener = this.metricsListener;
+            if (metricsListener != null) {
+                metricsListener.onJongSungDetected(jongSungDetector);
+            }
+            return jongSungType;
+        }
 
         return -1;
     }
 
+    // previous의 [previousStart, previousEnd) 구간 뒤에 str이 올 때 조사를 교정한다.
+    public String getJosaModifiedString(CharSequence previous, int previousStart, int previousEnd, String str) {
+        if (previous instanceof String && previousStart == 0 && previousEnd == previous.length()) {
+            return getJosaModifiedString((String) previous, str);
+        }
+
+        if (previous == null || previousStart >= previousEnd) {
+            return str;
+        }
+
+        JosaMatch josaMatch = findJosa(str);
+
+        JosaMetricsListener metricsListener = this.metricsListener;
+        if (metricsListener != null) {
+            if (josaMatch != null) {
+                metricsListener.onJosaFound(josaMatch);
+            } else {
+                metricsListener.onJosaNotFound();
+            }
+        }
+
+        if (josaMatch == null) {
+            return str;
+        }
+
+        StringBuilder sb = new StringBuilder(str.length() + 2);
+        appendJosaModifiedString(sb, previous, previousStart, previousEnd, str, josaMatch, null);
+        return sb.toString();
+    }
+
     public String getJosaModifiedString(String previous, String str) {
 
         if (previous == null || previous.length() == 0) {
             return str;
         }
 
-        Pair<String, String> matchedJosaPair = null;
-        int josaIndex = -1;
+        JosaMatch josaMatch = findJosa(str);
 
-        String searchStr = null;
-        for (Pair<String, String> josaPair : josaPairs) {
-            int firstIndex = indexOfJosa(str, josaPair.first);
-            int secondIndex = indexOfJosa(str, josaPair.second);
+        JosaMetricsListener metricsListener = this.metricsListener;
+        if (metricsListener != null) {
+            if (josaMatch != null) {
+                metricsListener.onJosaFound(josaMatch);
+            } else {
+                metricsListener.onJosaNotFound();
+            }
+        }
 
-            if (firstIndex >= 0 && secondIndex >= 0) {
-                if (firstIndex < secondIndex) {
-                    josaIndex = firstIndex;
-                    searchStr = josaPair.first;
-                } else {
-                    josaIndex = secondIndex;
-                    searchStr = josaPair.second;
-                }
-            } else if (firstIndex >= 0) {
-                josaIndex = firstIndex;
-                searchStr = josaPair.first;
-            } else if (secondIndex >= 0) {
-                josaIndex = secondIndex;
-                searchStr = josaPair.second;
+        if (josaMatch != null) {
+            int jongSungType = getJongSungType(previous);
+            if (jongSungType >= 0) {
+                return replaceStringByJongSung(str, josaMatch.josaPair, jongSungType);
             }
 
-            if (josaIndex >= 0 && isEndSkipText(str, 0, josaIndex)) {
-                matchedJosaPair = josaPair;
-                break;
+            // 없으면 괄호 표현식을 사용한다. ex) "???을(를) 찾을 수 없습니다."
+            if (metricsListener != null) {
+                metricsListener.onFallback(previous);
             }
+            return str.substring(0, josaMatch.index) + getUnknownJosa(josaMatch.josaPair) + str.substring(josaMatch.index + josaMatch.josa.length());
         }
 
-        if (matchedJosaPair != null) {
+        return str;
+    }
 
-            String readText = getReadText(previous);
+    // findJosa()로 미리 찾아둔 조사 위치를 이용해 교정된 문자열을 sb에 추가한다.
+    public void appendJosaModifiedString(StringBuilder sb, String previous, String str, JosaMatch josaMatch) {
+        if (josaMatch == null || previous == null || previous.length() == 0) {
+            sb.append(str);
+            return;
+        }
 
-            ArrayList<JongSungDetector> jongSungDetectors = getJongSungDetectors();
-            for (JongSungDetector jongSungDetector : jongSungDetectors) {
-                if (jongSungDetector.canHandle(readText)) {
-                    return replaceStringByJongSung(str, matchedJosaPair, jongSungDetector.getJongSungType(readText));
-                }
+        int jongSungType = getJongSungType(previous);
+        String josa;
+        if (jongSungType >= 0) {
+            josa = getJosa(josaMatch.josaPair, jongSungType);
+        } else {
+            josa = getUnknownJosa(josaMatch.josaPair);
+
+            JosaMetricsListener metricsListener = this.metricsListener;
+            if (metricsListener != null) {
+                metricsListener.onFallback(previous);
             }
+        }
 
-            // 없으면 괄호 표현식을 사용한다. ex) "???을(를) 찾을 수 없습니다."
+        sb.append(str, 0, josaMatch.index);
+        sb.append(josa);
+        sb.append(str, josaMatch.index + josaMatch.josa.length(), str.length());
+    }
 
-            String replaceStr = matchedJosaPair.first + "(" + matchedJosaPair.second + ")";
-            return str.substring(0, josaIndex) + replaceStr + str.substring(josaIndex + searchStr.length());
+    // 종성 유형을 이미 알고 있는 경우. ex) JosaAware 인자
+    public void appendJosaModifiedString(StringBuilder sb, String str, JosaMatch josaMatch, int jongSungType) {
+        sb.append(str, 0, josaMatch.index);
+        sb.append(getJosa(josaMatch.josaPair, jongSungType));
+        sb.append(str, josaMatch.index + josaMatch.josa.length(), str.length());
+    }
+
+    // 앞의 인자가 sb의 [previousStart, previousEnd) 구간에 이미 추가되어 있는 경우. 인자 문자열을 따로 만들지 않는다.
+    public void appendJosaModifiedString(StringBuilder sb, int previousStart, int previousEnd, String str, JosaMatch josaMatch, JosaRenderContext context) {
+        appendJosaModifiedString(sb, sb, previousStart, previousEnd, str, josaMatch, context);
+    }
+
+    // 앞의 문자열이 previous의 [previousStart, previousEnd) 구간인 경우
+    public void appendJosaModifiedString(StringBuilder sb, CharSequence previous, int previousStart, int previousEnd, String str, JosaMatch josaMatch, JosaRenderContext context) {
+        if (josaMatch == null || previous == null || previousStart >= previousEnd) {
+            sb.append(str);
+            return;
         }
 
-        return str;
+        appendJosaModifiedString(sb, previous, previousStart, previousEnd, str, josaMatch, getJongSungType(previous, previousStart, previousEnd, context));
+    }
+
+    // 앞의 문자열의 종성 유형을 이미 계산한 경우. -1이면 괄호 표현식을 사용한다. (JosaTemplate에서 반복되는 인자)
+    void appendJosaModifiedString(StringBuilder sb, CharSequence previous, int previousStart, int previousEnd, String str, JosaMatch josaMatch, int jongSungType) {
+        if (josaMatch == null || previous == null || previousStart >= previousEnd) {
+            sb.append(str);
+            return;
+        }
+
+        if (jongSungType >= 0) {
+            sb.append(str, 0, josaMatch.index);
+            sb.append(getJosa(josaMatch.josaPair, jongSungType));
+        } else {
+            JosaMetricsListener metricsListener = this.metricsListener;
+            if (metricsListener != null) {
+                metricsListener.onFallback(previous.subSequence(previousStart, previousEnd).toString());
+            }
+
+            sb.append(str, 0, josaMatch.index);
+            sb.append(josaMatch.josaPair.first).append('(').append(josaMatch.josaPair.second).append(')');
+        }
+        sb.append(str, josaMatch.index + josaMatch.josa.length(), str.length());
+    }
+
+    // 종성 유형에 맞는 조사를 선택
+    public static String getJosa(Pair<String, String> josaPair, int jongSungType) {
+        return isFirstJosa(josaPair, jongSungType) ? josaPair.first : josaPair.second;
+    }
+
+    // 종성이 있을 때 사용하는 조사(first)를 사용해야 하는지 여부
+    static boolean isFirstJosa(Pair<String, String> josaPair, int jongSungType) {
+        // 으로, 으로서, 으로써는 종성이 'ㄹ'이면 종성이 없는 것과 같이 사용한다. ex) 서울로, 칼로써
+        if (josaPair.first.startsWith("으로")) {
+            return jongSungType == 1;
+        }
+
+        return jongSungType > 0;
+    }
+
+    // 판단할 수 없을 때 사용하는 괄호 표현식. ex) "을(를)"
+    private static String getUnknownJosa(Pair<String, String> josaPair) {
+        return josaPair.first + "(" + josaPair.second + ")";
+    }
+
+    // index 위치에 조사 쌍을 함께 적은 문자열이 있는지 여부. ex) "을(를)", "(이)가", "(으)로"
+    static boolean isJosaPairText(String str, int index) {
+        for (Pair<String, String> josaPair : josaPairs) {
+            if (str.startsWith(getUnknownJosa(josaPair), index)
+                    || str.startsWith("(" + josaPair.first + ")" + josaPair.second, index)) {
+                return true;
+            }
+
+            // "으로"는 '으'만 괄호로 묶는다. ex) "(으)로"
+            if (josaPair.first.endsWith(josaPair.second)) {
+                String prefix = josaPair.first.substring(0, josaPair.first.length() - josaPair.second.length());
+                if (str.startsWith("(" + prefix + ")" + josaPair.second, index)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
     }
 
     public String replaceStringByJongSung(String str, Pair<String, String> josaPair, int jongSungType) {
         if (josaPair != null) {
             // 잘못된 것을 찾아야 하므로 반대로 찾는다. 종성이 있으면 종성이 없을 때 사용하는 조사가 사용 되었는지 찾는다.
-            boolean useFirst;
-
-            if (josaPair.first.equals("으로")) {
-                useFirst = jongSungType == 1;
-            } else {
-                useFirst = jongSungType > 0;
-            }
+            boolean useFirst = isFirstJosa(josaPair, jongSungType);
 
             String searchStr = useFirst ? josaPair.second : josaPair.first;
             String replaceStr = useFirst ? josaPair.first : josaPair.second;
@@ -289,13 +684,14 @@ public class JosaFormatter {
 
     // 조사 앞에 붙는 문자중 무시할 문자들. ex) "(%s)으로"
     public boolean isEndSkipText(char ch) {
-        String skipChars = "\"')]}>";
-        return skipChars.indexOf(ch) >= 0;
+        return endSkipChars.contains(ch);
     }
 
     public String getReadText(String str) {
         for (Pair<String, String> readingRule : readingRules) {
-            str = str.replace(readingRule.first, readingRule.second);
+            if (!readingRule.first.isEmpty() && str.contains(readingRule.first)) {
+                str = str.replace(readingRule.first, readingRule.second);
+            }
         }
 
         int skipCount = 0;
@@ -312,6 +708,55 @@ public class JosaFormatter {
         return str.substring(0, i + 1);
     }
 
+    // 읽기 규칙을 적용하고 끝의 무시할 문자를 제외한 [start, end) 구간.
+    // 적용할 규칙이 없으면 복사하지 않고 text를 그대로 사용하는 CharBuffer를 반환한다.
+    public CharSequence getReadText(CharSequence text, int start, int end) {
+        StringBuilder readText = applyReadingRules(text, start, end, null);
+        if (readText != null) {
+            readText.setLength(getReadTextEnd(readText, 0, readText.length()));
+            return readText;
+        }
+
+        return CharBuffer.wrap(text, start, getReadTextEnd(text, start, end));
+    }
+
+    // 끝의 무시할 문자를 제외한 위치
+    private int getReadTextEnd(CharSequence text, int start, int end) {
+        while (end > start && isEndSkipText(text.charAt(end - 1))) {
+            --end;
+        }
+        return end;
+    }
+
+    // getReadText()와 동일하게 읽기 규칙을 순서대로 적용한다. 적용할 규칙이 없으면 복사하지 않고 null을 반환한다.
+    private StringBuilder applyReadingRules(CharSequence text, int start, int end, JosaRenderContext context) {
+        StringBuilder readText = null;
+        ArrayList<Pair<String, String>> readingRules = this.readingRules;
+        for (int i = 0; i < readingRules.size(); ++i) {
+            Pair<String, String> readingRule = readingRules.get(i);
+            if (readingRule.first.isEmpty()) {
+                continue;
+            }
+
+            if (readText == null) {
+                if (CharUtils.indexOf(text, start, end, readingRule.first) < 0) {
+                    continue;
+                }
+                readText = context != null ? context.readText : new StringBuilder(end - start);
+                readText.setLength(0);
+                readText.append(text, start, end);
+            }
+
+            int index = readText.indexOf(readingRule.first);
+            while (index >= 0) {
+                readText.replace(index, index + readingRule.first.length(), readingRule.second);
+                index = readText.indexOf(readingRule.first, index + readingRule.second.length());
+            }
+        }
+
+        return readText;
+    }
+
     public void addReadRule(String originalText, String replaceText) {
         for (Pair<String, String> readingRule : readingRules) {
             if (readingRule.first.equals(originalText)) {
@@ -320,34 +765,101 @@ public class JosaFormatter {
             }
         }
         readingRules.add(new Pair<>(originalText, replaceText));
+        ++readingRulesVersion;
     }
 
-    interface JongSungDetector {
+    public interface JongSungDetector {
         boolean canHandle(String str);
 
         // 0: 종성 없음. 1: 종성 있음. 2: 종성이 'ㄹ'임.
         int getJongSungType(String str);
     }
 
+    // 문자열을 만들지 않고 text의 [start, end) 구간을 직접 검사하는 detector. 기본 detector들은 모두 이 방식으로 동작한다.
+    // StringBuilder, CharBuffer 등 큰 버퍼의 끝 부분을 복사하지 않고 검사할 수 있다.
+    public abstract static class TextJongSungDetector implements JongSungDetector {
+        public abstract boolean canHandle(CharSequence text, int start, int end);
+
+        // 0: 종성 없음. 1: 종성 있음. 2: 종성이 'ㄹ'임.
+        public abstract int getJongSungType(CharSequence text, int start, int end);
 
-    public static class HangulJongSungDetector implements JongSungDetector {
+        // String 기반 detector는 adapter로 감싼다.
+        public static TextJongSungDetector of(JongSungDetector jongSungDetector) {
+            if (jongSungDetector instanceof TextJongSungDetector) {
+                return (TextJongSungDetector) jongSungDetector;
+            }
+            return new StringJongSungDetectorAdapter(jongSungDetector);
+        }
 
         @Override
         public boolean canHandle(String str) {
-            return CharUtils.isHangulSyllables(CharUtils.lastChar(str));
+            return canHandle(str, 0, str.length());
         }
 
         @Override
         public int getJongSungType(String str) {
-            return CharUtils.getHangulJongSungType(CharUtils.lastChar(str));
+            return getJongSungType(str, 0, str.length());
+        }
+
+        // 규칙을 추가할 수 있는 detector는 규칙이 변경될 때마다 증가시킨다. JongSungCache 무효화에 사용.
+        public int getRulesVersion() {
+            return 0;
         }
     }
 
-    public static class EnglishCapitalJongSungDetector implements JongSungDetector {
+    // String 기반 detector를 TextJongSungDetector로 사용하기 위한 adapter. 검사할 때마다 구간을 문자열로 복사한다.
+    public static class StringJongSungDetectorAdapter extends TextJongSungDetector {
+        private final JongSungDetector jongSungDetector;
+
+        public StringJongSungDetectorAdapter(JongSungDetector jongSungDetector) {
+            this.jongSungDetector = jongSungDetector;
+        }
+
+        public JongSungDetector getJongSungDetector() {
+            return jongSungDetector;
+        }
+
+        @Override
+        public boolean canHandle(CharSequence text, int start, int end) {
+            return jongSungDetector.canHandle(text.subSequence(start, end).toString());
+        }
+
+        @Override
+        public int getJongSungType(CharSequence text, int start, int end) {
+            return jongSungDetector.getJongSungType(text.subSequence(start, end).toString());
+        }
 
         @Override
         public boolean canHandle(String str) {
-            char ch = CharUtils.lastChar(str);
+            return jongSungDetector.canHandle(str);
+        }
+
+        @Override
+        public int getJongSungType(String str) {
+            return jongSungDetector.getJongSungType(str);
+        }
+    }
+
+
+    // 완성형 한글 외에 NFD로 분해된 한글 자모와 호환 자모(ㅋㅋ 등)도 끝 글자만으로 판단한다.
+    public static class HangulJongSungDetector extends TextJongSungDetector {
+
+        @Override
+        public boolean canHandle(CharSequence text, int start, int end) {
+            return CharUtils.isHangul(CharUtils.lastChar(text, start, end));
+        }
+
+        @Override
+        public int getJongSungType(CharSequence text, int start, int end) {
+            return CharUtils.getHangulJongSungType(CharUtils.lastChar(text, start, end));
+        }
+    }
+
+    public static class EnglishCapitalJongSungDetector extends TextJongSungDetector {
+
+        @Override
+        public boolean canHandle(CharSequence text, int start, int end) {
+            char ch = CharUtils.lastChar(text, start, end);
             if (CharUtils.isAlphaUpperCase(ch)) {
                 return true;
             }
@@ -356,8 +868,8 @@ public class JosaFormatter {
         }
 
         @Override
-        public int getJongSungType(String str) {
-            char lastChar = CharUtils.lastChar(str);
+        public int getJongSungType(CharSequence text, int start, int end) {
+            char lastChar = CharUtils.lastChar(text, start, end);
             switch (lastChar) {
                 case 'M':
                 case 'N':
@@ -373,7 +885,7 @@ public class JosaFormatter {
     }
 
 
-    public static class EnglishJongSungDetector implements JongSungDetector {
+    public static class EnglishJongSungDetector extends TextJongSungDetector {
 
         private ArrayList<Pair<String, Integer>> customRules = new ArrayList<>(Arrays.asList(
                 new Pair<>("app", 1),
@@ -390,8 +902,8 @@ public class JosaFormatter {
         ));
 
         @Override
-        public boolean canHandle(String str) {
-            char lastChar = CharUtils.lastChar(str);
+        public boolean canHandle(CharSequence text, int start, int end) {
+            char lastChar = CharUtils.lastChar(text, start, end);
 
             // q, j 등으로 끝나는 단어는 알려지지 않음.
             String unknownWordSuffixs = "qj";
@@ -403,37 +915,50 @@ public class JosaFormatter {
             return CharUtils.isAlpha(lastChar);
         }
 
+        // addCustomRule() 호출시 증가. JongSungCache 무효화에 사용.
+        private final AtomicInteger rulesVersion = new AtomicInteger();
+
+        public int getCustomRuleCount() {
+            return customRules.size();
+        }
+
         public void addCustomRule(String suffix, int jongSungType) {
             customRules.add(new Pair<>(suffix, jongSungType));
+            rulesVersion.incrementAndGet();
         }
 
         @Override
-        public int getJongSungType(String str) {
-            str = str.toLowerCase();
+        public int getRulesVersion() {
+            return rulesVersion.get();
+        }
 
-            for (Pair<String, Integer> rule : customRules) {
-                if (str.endsWith(rule.first)) {
+        // 소문자로 변환한 문자열을 만들지 않고 문자 단위로 비교한다.
+        @Override
+        public int getJongSungType(CharSequence text, int start, int end) {
+            for (int i = 0; i < customRules.size(); ++i) {
+                Pair<String, Integer> rule = customRules.get(i);
+                if (CharUtils.endsWithIgnoreCase(text, start, end, rule.first)) {
                     return rule.second;
                 }
             }
 
-            int length = str.length();
-            char lastChar1 = str.charAt(length - 1);
+            int length = end - start;
+            char lastChar1 = Character.toLowerCase(CharUtils.fold(text.charAt(end - 1)));
 
             // 3자 이상인 경우만 마지막 2자만 suffix로 간주.
-            String suffix = null;
+            boolean hasSuffix = false;
             char lastChar2 = '\0';
             char lastChar3 = '\0';
-            if (str.length() >= 3) {
-                lastChar2 = str.charAt(length - 2);
-                lastChar3 = str.charAt(length - 3);
+            if (length >= 3) {
+                lastChar2 = Character.toLowerCase(CharUtils.fold(text.charAt(end - 2)));
+                lastChar3 = Character.toLowerCase(CharUtils.fold(text.charAt(end - 3)));
 
                 if (CharUtils.isAlpha(lastChar2) && CharUtils.isAlpha(lastChar3)) {
-                    suffix = String.valueOf(lastChar2) + String.valueOf(lastChar1);
+                    hasSuffix = true;
                 }
             }
 
-            if (suffix != null) {
+            if (hasSuffix) {
                 // 끝나는 문자들로 종성 여부를 확인할 때 qj를 제외한 알파벳 22자를 기준으로 분류하면 아래와 같다.
                 String rieuljongSungChars = "l"; // 1. 항상 받침 'ㄹ'로 읽음
                 String jongSungChars = "mn"; // 2. 항상 받침으로 읽음
@@ -453,11 +978,9 @@ public class JosaFormatter {
                 }
 
                 if (jongSungCandidateChars.indexOf(lastChar1) >= 0) {
-                    // 예외 처리
-                    switch (suffix) {
-                        case "ck":
-                        case "mb": // b 묵음
-                            return 1;
+                    // 예외 처리 : "ck", "mb" (b 묵음)
+                    if ((lastChar2 == 'c' && lastChar1 == 'k') || (lastChar2 == 'm' && lastChar1 == 'b')) {
+                        return 1;
                     }
 
                     // 마지막 1문자 bckpt는 모음 뒤에서는 받침으로 읽는다.
@@ -465,16 +988,18 @@ public class JosaFormatter {
                     return vowelChars.indexOf(lastChar2) >= 0 ? 1 : 0;
                 } else if (notJongSungCandidateChars.indexOf(lastChar1) >= 0) {
                     // 마지막 1문자 deg는 대체로 받침으로 읽지 않지만, 아래의 경우는 받침으로 읽음.
-                    switch (suffix) {
-                        case "le": // ㄹ
-                            return 2;
-                        case "me": // ㅁ
-                        case "ne": // ㄴ
-                        case "ng": // ㅇ
-                            return 1;
-                        default:
-                            return 0;
+                    if (lastChar1 == 'e') {
+                        switch (lastChar2) {
+                            case 'l': // ㄹ
+                                return 2;
+                            case 'm': // ㅁ
+                            case 'n': // ㄴ
+                                return 1;
+                        }
+                    } else if (lastChar1 == 'g' && lastChar2 == 'n') { // ㅇ
+                        return 1;
                     }
+                    return 0;
                 } else {
                     // unreachable condition
                 }
@@ -493,19 +1018,45 @@ public class JosaFormatter {
 
     // 영문+숫자를 미국식으로 읽기 ex) MP3, iPhone4, iOS8.3 (iOS eight point three), Office2003 (Office two thousand three)
     // 일반적으로 영문+숫자라도 11 이상은 그냥 한글로 읽는 경우가 많아서 적합하지 않을 수 있음.
-    public static class EnglishNumberJongSungDetector implements JongSungDetector {
+    public static class EnglishNumberJongSungDetector extends TextJongSungDetector {
+        // scan() 결과
+        static final int NUMBER_FOUND = 1;
+        static final int ENGLISH_FOUND = 2;
+        static final int FLOAT = 4;
+
         public static ParseResult parse(String str) {
             ParseResult parseResult = new ParseResult();
+            long scanResult = scan(str, 0, str.length());
+            parseResult.isNumberFound = (scanResult & NUMBER_FOUND) != 0;
+            parseResult.isEnglishFound = (scanResult & ENGLISH_FOUND) != 0;
+            parseResult.isFloat = (scanResult & FLOAT) != 0;
+
+            if (parseResult.isNumberFound) {
+                int numberPartBeiginIndex = getNumberPartBeginIndex(scanResult);
+                parseResult.numberPart = str.substring(numberPartBeiginIndex);
+                parseResult.prefixPart = str.substring(0, numberPartBeiginIndex);
+
+                parseResult.number = parseNumber(str, str.length(), scanResult);
+            }
+
+            return parseResult;
+        }
+
+        // parse()와 동일하게 분석하지만 ParseResult를 만들지 않는다. 전각 숫자, 영문은 CharUtils.fold()로 변환해서 검사한다.
+        // 하위 32bit는 NUMBER_FOUND, ENGLISH_FOUND, FLOAT, 상위 32bit는 숫자 부분의 시작 위치.
+        static long scan(CharSequence text, int start, int end) {
+            int flags = 0;
             int i;
             boolean isSpaceFound = false;
-            int numberPartBeiginIndex = 0;
+            int numberPartBeiginIndex = end;
             boolean isNumberCompleted = false;
             // 뒤에서부터 숫자, 영어 순서로 찾는다.
-            for (i = str.length() - 1; i >= 0; --i) {
-                char ch = str.charAt(i);
+            for (i = end - 1; i >= start; --i) {
+                char ch = CharUtils.fold(text.charAt(i));
+                boolean isNumberFound = (flags & NUMBER_FOUND) != 0;
 
                 if (!isNumberCompleted && !isSpaceFound && CharUtils.isNumber(ch)) {
-                    parseResult.isNumberFound = true;
+                    flags |= NUMBER_FOUND;
                     numberPartBeiginIndex = i;
                     continue;
                 }
@@ -514,61 +1065,94 @@ public class JosaFormatter {
                     continue;
                 }
 
-                if (!isNumberCompleted && parseResult.isNumberFound && !parseResult.isFloat && ch == '.') {
-                    parseResult.isFloat = true;
+                if (!isNumberCompleted && isNumberFound && (flags & FLOAT) == 0 && ch == '.') {
+                    flags |= FLOAT;
                     continue;
                 }
 
                 // 공백은 숫자가 찾아진 이후 한번만 허용
-                if (!isNumberCompleted && parseResult.isNumberFound && !isSpaceFound && ch == ' ') {
+                if (!isNumberCompleted && isNumberFound && !isSpaceFound && ch == ' ') {
                     isSpaceFound = true;
                     isNumberCompleted = true;
                     continue;
                 }
 
                 // - 는 음수나 dash 용도로 사용될 수 있음.
-                if (!isNumberCompleted && parseResult.isNumberFound && !isSpaceFound && ch == '-') {
+                if (!isNumberCompleted && isNumberFound && !isSpaceFound && ch == '-') {
                     isNumberCompleted = true;
                     continue;
                 }
 
                 // 영어는 숫자가 찾아진 이후에만 허용
-                if (parseResult.isNumberFound && CharUtils.isAlpha(ch)) {
-                    parseResult.isEnglishFound = true;
-                    isNumberCompleted = true;
+                if (isNumberFound && CharUtils.isAlpha(ch)) {
+                    flags |= ENGLISH_FOUND;
                     break;
                 }
 
                 break;
             }
 
-            if (parseResult.isNumberFound) {
-                parseResult.numberPart = str.substring(numberPartBeiginIndex);
-                parseResult.prefixPart = str.substring(0, numberPartBeiginIndex);
+            return ((long) numberPartBeiginIndex << 32) | flags;
+        }
+
+        static int getNumberPartBeginIndex(long scanResult) {
+            return (int) (scanResult >>> 32);
+        }
 
+        // 소수가 아닌 숫자 부분의 값. parse()와 동일하게 ','가 있으면 0
+        static long parseInteger(CharSequence text, int start, int end) {
+            if (end - start > 15) {
+                // double로 정확히 표현할 수 없는 큰 수는 parse()와 같은 결과를 얻기 위해 Double.parseDouble()을 사용한다.
                 try {
-                    parseResult.number = Double.parseDouble(parseResult.numberPart);
-                } catch (Exception ignore) {
+                    return (long) Double.parseDouble(CharUtils.foldedString(text, start, end));
+                } catch (NumberFormatException e) {
+                    return 0;
                 }
             }
 
-            return parseResult;
+            long number = 0;
+            for (int i = start; i < end; ++i) {
+                char ch = CharUtils.fold(text.charAt(i));
+                if (!CharUtils.isNumber(ch)) {
+                    return 0;
+                }
+                number = number * 10 + (ch - '0');
+            }
+
+            return number;
+        }
+
+        static long parseInteger(CharSequence text, int end, long scanResult) {
+            return parseInteger(text, getNumberPartBeginIndex(scanResult), end);
+        }
+
+        // 숫자 부분의 값. 소수인 경우에만 문자열을 만든다.
+        static double parseNumber(CharSequence text, int end, long scanResult) {
+            if ((scanResult & FLOAT) == 0) {
+                return parseInteger(text, end, scanResult);
+            }
+
+            try {
+                return Double.parseDouble(CharUtils.foldedString(text, getNumberPartBeginIndex(scanResult), end));
+            } catch (NumberFormatException e) {
+                return 0;
+            }
         }
 
         @Override
-        public boolean canHandle(String str) {
-            EnglishNumberJongSungDetector.ParseResult parseResult = EnglishNumberJongSungDetector.parse(str);
+        public boolean canHandle(CharSequence text, int start, int end) {
+            long scanResult = scan(text, start, end);
 
-            return parseResult.isNumberFound && parseResult.isEnglishFound;
+            return (scanResult & NUMBER_FOUND) != 0 && (scanResult & ENGLISH_FOUND) != 0;
 
         }
 
         @Override
-        public int getJongSungType(String str) {
-            EnglishNumberJongSungDetector.ParseResult parseResult = EnglishNumberJongSungDetector.parse(str);
+        public int getJongSungType(CharSequence text, int start, int end) {
+            long scanResult = scan(text, start, end);
 
-            if (!parseResult.isFloat) {
-                long number = (long) (parseResult.number);
+            if ((scanResult & FLOAT) == 0) {
+                long number = parseInteger(text, end, scanResult);
 
                 if (number == 0) {
                     return 0;
@@ -591,7 +1175,7 @@ public class JosaFormatter {
             }
 
             // 마지막 한자리 (소수 포함)
-            int oneDigit = CharUtils.lastChar(parseResult.numberPart) - '0';
+            int oneDigit = CharUtils.lastChar(text, start, end) - '0';
 
             switch (oneDigit) {
                 case 1:
@@ -618,20 +1202,23 @@ public class JosaFormatter {
 
     // 영문+숫자 10이하만 영어로 읽기 ex) MP3, iPhone4
     // 다른 경우에는 숫자를 한글로 읽기 위해서는 EnglishNumberJongSungDetector 와 같이 사용하면 안된다.
-    public static class EnglishNumberKorStyleJongSungDetector implements JongSungDetector {
+    public static class EnglishNumberKorStyleJongSungDetector extends TextJongSungDetector {
 
         @Override
-        public boolean canHandle(String str) {
-            EnglishNumberJongSungDetector.ParseResult parseResult = EnglishNumberJongSungDetector.parse(str);
+        public boolean canHandle(CharSequence text, int start, int end) {
+            long scanResult = EnglishNumberJongSungDetector.scan(text, start, end);
 
-            return parseResult.isNumberFound && parseResult.isEnglishFound && !parseResult.isFloat && parseResult.number <= 10;
+            return (scanResult & EnglishNumberJongSungDetector.NUMBER_FOUND) != 0
+                    && (scanResult & EnglishNumberJongSungDetector.ENGLISH_FOUND) != 0
+                    && (scanResult & EnglishNumberJongSungDetector.FLOAT) == 0
+                    && EnglishNumberJongSungDetector.parseInteger(text, end, scanResult) <= 10;
 
         }
 
         @Override
-        public int getJongSungType(String str) {
-            EnglishNumberJongSungDetector.ParseResult parseResult = EnglishNumberJongSungDetector.parse(str);
-            int number = (int) (parseResult.number);
+        public int getJongSungType(CharSequence text, int start, int end) {
+            long scanResult = EnglishNumberJongSungDetector.scan(text, start, end);
+            int number = (int) EnglishNumberJongSungDetector.parseNumber(text, end, scanResult);
             switch (number) {
                 case 1:
                 case 7:
@@ -646,21 +1233,21 @@ public class JosaFormatter {
     }
 
     // 숫자를 한국식으로 읽기
-    public static class NumberJongSungDetector implements JongSungDetector {
+    public static class NumberJongSungDetector extends TextJongSungDetector {
         @Override
-        public boolean canHandle(String str) {
-            EnglishNumberJongSungDetector.ParseResult parseResult = EnglishNumberJongSungDetector.parse(str);
+        public boolean canHandle(CharSequence text, int start, int end) {
+            long scanResult = EnglishNumberJongSungDetector.scan(text, start, end);
 
-            return parseResult.isNumberFound;
+            return (scanResult & EnglishNumberJongSungDetector.NUMBER_FOUND) != 0;
 
         }
 
         @Override
-        public int getJongSungType(String str) {
-            EnglishNumberJongSungDetector.ParseResult parseResult = EnglishNumberJongSungDetector.parse(str);
+        public int getJongSungType(CharSequence text, int start, int end) {
+            long scanResult = EnglishNumberJongSungDetector.scan(text, start, end);
 
-            if (!parseResult.isFloat) {
-                long number = (long) (parseResult.number);
+            if ((scanResult & EnglishNumberJongSungDetector.FLOAT) == 0) {
+                long number = EnglishNumberJongSungDetector.parseInteger(text, end, scanResult);
                 // 조 예외 처리 : 조(받침 없음), 십, 백, 천, 만, 억, 경, 현
                 if (number % 1000000000000L == 0) {
                     return 1;
@@ -668,7 +1255,7 @@ public class JosaFormatter {
             }
 
             // 마지막 한자리 (소수 포함)
-            int oneDigit = CharUtils.lastChar(parseResult.numberPart) - '0';
+            int oneDigit = CharUtils.lastChar(text, start, end) - '0';
             switch (oneDigit) {
                 case 0:
                 case 1:
@@ -685,32 +1272,158 @@ public class JosaFormatter {
     }
 
 
+    // 숫자 뒤의 단위는 단위를 읽는 방법으로 판단 ex) 30%(퍼센트), 5kg(킬로그램), 36.5℃(도)
+    // 단위 목록을 뒤에서부터 읽는 trie로 컴파일해 두고 문자열 끝에서 한번만 읽는다.
+    // 대소문자를 구분한다. ex) 5G(파이브지)는 단위가 아님
+    // 개, 원 처럼 한글 단위는 HangulJongSungDetector에서 판단한다.
+    public static class UnitJongSungDetector extends TextJongSungDetector {
+
+        private final LinkedHashMap<String, Integer> units = new LinkedHashMap<>();
+
+        // addUnit() 할 때마다 새로 만든다. 읽을 때는 lock 없이 사용한다.
+        private volatile SuffixTrie suffixTrie;
+
+        // addUnit() 호출시 증가
+        private final AtomicInteger rulesVersion = new AtomicInteger();
+
+        public UnitJongSungDetector() {
+            // 퍼센트, 도, 미터, 리터, 바이트, 헤르츠, 와트, 볼트
+            addUnits(new String[]{"%", "℃", "℉", "°", "°C", "°F", "m", "cm", "mm", "km", "L", "l", "mL", "ml",
+                    "KB", "kB", "MB", "GB", "TB", "Hz", "kHz", "MHz", "GHz", "W", "kW", "V"}, 0);
+            // 퍼밀, 그램
+            addUnits(new String[]{"‰", "g", "mg", "kg"}, 1);
+        }
+
+        private void addUnits(String[] units, int jongSungType) {
+            for (String unit : units) {
+                this.units.put(unit, jongSungType);
+            }
+            suffixTrie = new SuffixTrie(this.units);
+        }
+
+        public int getUnitCount() {
+            return units.size();
+        }
+
+        // 이미 있는 단위는 변경한다. ex) addUnit("in", 0) // 인치
+        public synchronized void addUnit(String unit, int jongSungType) {
+            if (unit.isEmpty()) {
+                throw new IllegalArgumentException("empty unit");
+            }
+            units.put(unit, jongSungType);
+            suffixTrie = new SuffixTrie(units);
+            rulesVersion.incrementAndGet();
+        }
+
+        @Override
+        public int getRulesVersion() {
+            return rulesVersion.get();
+        }
+
+        @Override
+        public boolean canHandle(CharSequence text, int start, int end) {
+            return suffixTrie.match(text, start, end) >= 0;
+        }
+
+        @Override
+        public int getJongSungType(CharSequence text, int start, int end) {
+            return suffixTrie.match(text, start, end);
+        }
+
+        private static final class SuffixTrie {
+            private char[] chars = new char[0];
+            private SuffixTrie[] nextTries = new SuffixTrie[0];
+
+            // 단위가 끝나는 경우 종성 유형
+            private int jongSungType = -1;
+
+            SuffixTrie() {
+            }
+
+            SuffixTrie(Map<String, Integer> units) {
+                for (Map.Entry<String, Integer> entry : units.entrySet()) {
+                    String unit = entry.getKey();
+                    SuffixTrie trie = this;
+                    for (int i = unit.length() - 1; i >= 0; --i) {
+                        trie = trie.next(unit.charAt(i), true);
+                    }
+                    trie.jongSungType = entry.getValue();
+                }
+            }
+
+            SuffixTrie next(char ch, boolean create) {
+                for (int i = 0; i < chars.length; ++i) {
+                    if (chars[i] == ch) {
+                        return nextTries[i];
+                    }
+                }
+
+                if (!create) {
+                    return null;
+                }
+
+                SuffixTrie trie = new SuffixTrie();
+                chars = Arrays.copyOf(chars, chars.length + 1);
+                nextTries = Arrays.copyOf(nextTries, nextTries.length + 1);
+                chars[chars.length - 1] = ch;
+                nextTries[nextTries.length - 1] = trie;
+                return trie;
+            }
+
+            // 숫자(공백 하나 허용) 바로 뒤에 오는 가장 긴 단위의 종성 유형. 없으면 -1
+            int match(CharSequence text, int start, int end) {
+                SuffixTrie trie = this;
+                int jongSungType = -1;
+                for (int i = end - 1; i > start; --i) {
+                    trie = trie.next(CharUtils.fold(text.charAt(i)), false);
+                    if (trie == null) {
+                        break;
+                    }
+                    if (trie.jongSungType >= 0 && isNumberBefore(text, start, i)) {
+                        jongSungType = trie.jongSungType;
+                    }
+                }
+
+                return jongSungType;
+            }
+
+            private static boolean isNumberBefore(CharSequence text, int start, int index) {
+                char ch = CharUtils.fold(text.charAt(index - 1));
+                if (ch == ' ' && index - 1 > start) {
+                    ch = CharUtils.fold(text.charAt(index - 2));
+                }
+
+                return CharUtils.isNumber(ch);
+            }
+        }
+    }
+
     // 한자는 한글 코드로 변경해서 판단
-    public static class HanjaJongSungDetector implements JongSungDetector {
+    public static class HanjaJongSungDetector extends TextJongSungDetector {
 
         @Override
-        public boolean canHandle(String str) {
-            return HanjaMap.canHandle(CharUtils.lastChar(str));
+        public boolean canHandle(CharSequence text, int start, int end) {
+            return HanjaMap.canHandle(CharUtils.lastChar(text, start, end));
         }
 
         @Override
-        public int getJongSungType(String str) {
-            char hangulChar = HanjaMap.toHangul(CharUtils.lastChar(str));
+        public int getJongSungType(CharSequence text, int start, int end) {
+            char hangulChar = HanjaMap.toHangul(CharUtils.lastChar(text, start, end));
             return CharUtils.getHangulJongSungType(hangulChar);
         }
     }
 
     // 일본어
-    public static class JapaneseJongSungDetector implements JongSungDetector {
+    public static class JapaneseJongSungDetector extends TextJongSungDetector {
 
         @Override
-        public boolean canHandle(String str) {
-            return CharUtils.isJapanese(CharUtils.lastChar(str));
+        public boolean canHandle(CharSequence text, int start, int end) {
+            return CharUtils.isJapanese(CharUtils.lastChar(text, start, end));
         }
 
         @Override
-        public int getJongSungType(String str) {
-            char lastChar = CharUtils.lastChar(str);
+        public int getJongSungType(CharSequence text, int start, int end) {
+            char lastChar = CharUtils.lastChar(text, start, end);
 
             return (lastChar == 0x30f3 || lastChar == 0x3093) ? 1 : 0;
         }
@@ -0,0 +1,54 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.util.Map;
+
+// JMX로 JosaFormatter 상태를 조회하기 위한 interface. JosaFormatterMonitor.register()로 등록한다.
+public interface JosaFormatterMXBean {
+    // 템플릿 캐시
+    int getTemplateCacheSize();
+
+    int getTemplateCacheMaxSize();
+
+    void setTemplateCacheMaxSize(int maxSize);
+
+    long getTemplateCacheHitCount();
+
+    long getTemplateCacheMissCount();
+
+    double getTemplateCacheHitRatio();
+
+    // 종성 캐시 (사용하지 않으면 0)
+    int getJongSungCacheSize();
+
+    double getJongSungCacheHitRatio();
+
+    // 규칙
+    int getReadingRuleCount();
+
+    int getCustomRuleCount();
+
+    int getJongSungDetectorCount();
+
+    // 통계 (JosaMetrics를 사용하는 경우)
+    Map<String, Long> getDetectorCounts();
+
+    long getFallbackCount();
+
+    long getFormatCount();
+
+    double getAverageLatencyMicros();
+
+    double getLatency50Micros();
+
+    double getLatency99Micros();
+
+    double getLatency999Micros();
+
+    // operations
+    void clearCaches();
+
+    void resetMetrics();
+
+    // "사용 횟수 형식 문자열" 목록
+    String[] dumpHottestTemplates(int count);
+}
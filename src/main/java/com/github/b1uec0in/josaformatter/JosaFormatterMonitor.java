@@ -0,0 +1,207 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// JosaFormatter를 JMX MXBean으로 등록한다.
+// 통계를 수집하기 위해 등록된 metrics listener가 없으면 JosaMetrics를 등록한다.
+// ex) JosaFormatterMonitor.register("default", KoreanUtils.getDefaultJosaFormatter());
+//     -> com.github.b1uec0in.josaformatter:type=JosaFormatter,name=default
+public class JosaFormatterMonitor implements JosaFormatterMXBean {
+    public static final String DOMAIN = "com.github.b1uec0in.josaformatter";
+
+    private final JosaFormatter josaFormatter;
+
+    public JosaFormatterMonitor(JosaFormatter josaFormatter) {
+        this.josaFormatter = josaFormatter;
+
+        synchronized (josaFormatter) {
+            if (josaFormatter.getMetricsListener() == null) {
+                josaFormatter.setMetricsListener(new JosaMetrics());
+            }
+        }
+    }
+
+    public static ObjectName getObjectName(String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=JosaFormatter,name=" + ObjectName.quote(name));
+    }
+
+    public static JosaFormatterMonitor register(String name, JosaFormatter josaFormatter) throws JMException {
+        JosaFormatterMonitor monitor = new JosaFormatterMonitor(josaFormatter);
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = getObjectName(name);
+        if (mBeanServer.isRegistered(objectName)) {
+            mBeanServer.unregisterMBean(objectName);
+        }
+        mBeanServer.registerMBean(monitor, objectName);
+        return monitor;
+    }
+
+    public static void unregister(String name) throws JMException {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = getObjectName(name);
+        if (mBeanServer.isRegistered(objectName)) {
+            mBeanServer.unregisterMBean(objectName);
+        }
+    }
+
+    // 다른 metrics listener를 사용하는 경우 null
+    private JosaMetrics getMetrics() {
+        JosaMetricsListener metricsListener = josaFormatter.getMetricsListener();
+        return metricsListener instanceof JosaMetrics ? (JosaMetrics) metricsListener : null;
+    }
+
+    private static double ratio(long count, long total) {
+        return total > 0 ? (double) count / total : 0;
+    }
+
+    @Override
+    public int getTemplateCacheSize() {
+        return josaFormatter.getTemplateCacheSize();
+    }
+
+    @Override
+    public int getTemplateCacheMaxSize() {
+        return josaFormatter.getTemplateCacheMaxSize();
+    }
+
+    @Override
+    public void setTemplateCacheMaxSize(int maxSize) {
+        josaFormatter.setTemplateCacheMaxSize(maxSize);
+    }
+
+    @Override
+    public long getTemplateCacheHitCount() {
+        return josaFormatter.getTemplateCacheHitCount();
+    }
+
+    @Override
+    public long getTemplateCacheMissCount() {
+        return josaFormatter.getTemplateCacheMissCount();
+    }
+
+    @Override
+    public double getTemplateCacheHitRatio() {
+        long hitCount = josaFormatter.getTemplateCacheHitCount();
+        return ratio(hitCount, hitCount + josaFormatter.getTemplateCacheMissCount());
+    }
+
+    @Override
+    public int getJongSungCacheSize() {
+        JongSungCache jongSungCache = josaFormatter.getJongSungCache();
+        return jongSungCache != null ? jongSungCache.size() : 0;
+    }
+
+    @Override
+    public double getJongSungCacheHitRatio() {
+        JongSungCache jongSungCache = josaFormatter.getJongSungCache();
+        if (jongSungCache == null) {
+            return 0;
+        }
+        long hitCount = jongSungCache.getHitCount();
+        return ratio(hitCount, hitCount + jongSungCache.getMissCount());
+    }
+
+    @Override
+    public int getReadingRuleCount() {
+        return josaFormatter.getReadingRuleCount();
+    }
+
+    @Override
+    public int getCustomRuleCount() {
+        int count = 0;
+        for (JosaFormatter.JongSungDetector jongSungDetector : josaFormatter.getJongSungDetectors()) {
+            if (jongSungDetector instanceof JosaFormatter.EnglishJongSungDetector) {
+                count += ((JosaFormatter.EnglishJongSungDetector) jongSungDetector).getCustomRuleCount();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int getJongSungDetectorCount() {
+        return josaFormatter.getJongSungDetectors().size();
+    }
+
+    @Override
+    public Map<String, Long> getDetectorCounts() {
+        JosaMetrics metrics = getMetrics();
+        return metrics != null ? metrics.getDetectorCounts() : Collections.<String, Long>emptyMap();
+    }
+
+    @Override
+    public long getFallbackCount() {
+        JosaMetrics metrics = getMetrics();
+        return metrics != null ? metrics.getFallbackCount() : 0;
+    }
+
+    @Override
+    public long getFormatCount() {
+        JosaMetrics metrics = getMetrics();
+        return metrics != null ? metrics.getFormatCount() : 0;
+    }
+
+    @Override
+    public double getAverageLatencyMicros() {
+        JosaMetrics metrics = getMetrics();
+        return metrics != null ? metrics.getAverageLatencyNanos() / 1000 : 0;
+    }
+
+    @Override
+    public double getLatency50Micros() {
+        return getLatencyPercentileMicros(50);
+    }
+
+    @Override
+    public double getLatency99Micros() {
+        return getLatencyPercentileMicros(99);
+    }
+
+    @Override
+    public double getLatency999Micros() {
+        return getLatencyPercentileMicros(99.9);
+    }
+
+    private double getLatencyPercentileMicros(double percentile) {
+        JosaMetrics metrics = getMetrics();
+        return metrics != null ? metrics.getLatencyPercentileNanos(percentile) / 1000.0 : 0;
+    }
+
+    @Override
+    public void clearCaches() {
+        josaFormatter.clearTemplateCache();
+        JongSungCache jongSungCache = josaFormatter.getJongSungCache();
+        if (jongSungCache != null) {
+            jongSungCache.clear();
+        }
+    }
+
+    @Override
+    public void resetMetrics() {
+        JosaMetrics metrics = getMetrics();
+        if (metrics != null) {
+            metrics.reset();
+        }
+    }
+
+    @Override
+    public String[] dumpHottestTemplates(int count) {
+        JosaMetrics metrics = getMetrics();
+        if (metrics == null) {
+            return new String[0];
+        }
+
+        Map<String, Long> hottestTemplates = metrics.getHottestTemplates(count);
+        String[] lines = new String[hottestTemplates.size()];
+        int i = 0;
+        for (Map.Entry<String, Long> entry : hottestTemplates.entrySet()) {
+            lines[i++] = entry.getValue() + " " + entry.getKey();
+        }
+        return lines;
+    }
+}
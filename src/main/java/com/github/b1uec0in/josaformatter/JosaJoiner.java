@@ -0,0 +1,140 @@
+package com.github.b1uec0in.josaformatter;
+
+// 목록을 "사과, 배와 귤" 처럼 마지막 두 항목 사이에 조사(와/과, 이나/나)를 넣어서 연결한다.
+// 항목은 하나의 버퍼에 바로 추가하고, 항목을 모두 추가한 다음 마지막 구분자만 조사로 바꿔서 출력한다.
+// JosaAware를 구현하므로 인자로 넘기면 마지막 항목의 종성으로 뒤의 조사도 교정된다.
+// ex) JosaJoiner fruits = new JosaJoiner(josaFormatter, JosaJoiner.AND).add("사과").add("배").add("귤");
+//     josaFormatter.format("%s를 샀습니다.", fruits); // 사과, 배와 귤을 샀습니다.
+public final class JosaJoiner implements JosaAware, CharSequence {
+    public static final Pair<String, String> AND = new Pair<>("과", "와");
+    public static final Pair<String, String> OR = new Pair<>("이나", "나");
+
+    public static final String DEFAULT_SEPARATOR = ", ";
+
+    private final JosaFormatter josaFormatter;
+    private final Pair<String, String> conjunction;
+    private final String separator;
+    private final StringBuilder sb = new StringBuilder();
+
+    private int count;
+
+    // 마지막 구분자 위치
+    private int separatorStart;
+
+    // 마지막 두 항목의 위치와 미리 계산한 종성 유형(JosaAware, 등록한 상수). 없으면 -1
+    private int previousStart;
+    private int previousEnd;
+    private int previousJongSungType = -1;
+    private int lastStart;
+    private int lastJongSungType = -1;
+
+    // 조사를 넣은 문자열. CharSequence로 한 글자씩 읽을 때 매번 다시 만들지 않도록 add()할 때까지 유지한다.
+    private String rendered;
+
+    public JosaJoiner(JosaFormatter josaFormatter, Pair<String, String> conjunction) {
+        this(josaFormatter, conjunction, DEFAULT_SEPARATOR);
+    }
+
+    public JosaJoiner(JosaFormatter josaFormatter, Pair<String, String> conjunction, String separator) {
+        this.josaFormatter = josaFormatter;
+        this.conjunction = conjunction;
+        this.separator = separator;
+    }
+
+    public static JosaJoiner join(JosaFormatter josaFormatter, Pair<String, String> conjunction, Iterable<?> items) {
+        JosaJoiner josaJoiner = new JosaJoiner(josaFormatter, conjunction);
+        for (Object item : items) {
+            josaJoiner.add(item);
+        }
+
+        return josaJoiner;
+    }
+
+    public JosaJoiner add(Object item) {
+        rendered = null;
+        if (count > 0) {
+            separatorStart = sb.length();
+            sb.append(separator);
+        }
+
+        previousStart = lastStart;
+        previousEnd = separatorStart;
+        previousJongSungType = lastJongSungType;
+
+        lastStart = sb.length();
+        if (item instanceof JosaAware && ((JosaAware) item).getJosaText() != null) {
+            sb.append(((JosaAware) item).getJosaText());
+        } else if (item instanceof CharSequence) {
+            sb.append((CharSequence) item);
+        } else {
+            sb.append(item);
+        }
+        lastJongSungType = josaFormatter.getPresetJongSungType(item);
+        ++count;
+
+        return this;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // 마지막 구분자를 조사로 바꿔서 out에 추가한다.
+    public StringBuilder appendTo(StringBuilder out) {
+        if (count < 2) {
+            return out.append(sb);
+        }
+
+        int jongSungType = previousJongSungType >= 0 ? previousJongSungType : josaFormatter.getJongSungType(sb, previousStart, previousEnd, null);
+        out.append(sb, 0, separatorStart);
+        if (jongSungType >= 0) {
+            out.append(JosaFormatter.getJosa(conjunction, jongSungType));
+        } else {
+            out.append(conjunction.first).append('(').append(conjunction.second).append(')');
+        }
+        out.append(' ');
+        return out.append(sb, separatorStart + separator.length(), sb.length());
+    }
+
+    // 마지막 항목의 종성 유형
+    @Override
+    public int getJongSungType() {
+        if (count == 0) {
+            return -1;
+        }
+
+        return lastJongSungType >= 0 ? lastJongSungType : josaFormatter.getJongSungType(sb, lastStart, sb.length(), null);
+    }
+
+    @Override
+    public String getJosaText() {
+        return toString();
+    }
+
+    // 조사를 넣으면 구분자 길이만큼 달라진다.
+    @Override
+    public int length() {
+        return toString().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        String rendered = this.rendered;
+        if (rendered == null) {
+            rendered = appendTo(new StringBuilder(sb.length() + 4)).toString();
+            this.rendered = rendered;
+        }
+
+        return rendered;
+    }
+}
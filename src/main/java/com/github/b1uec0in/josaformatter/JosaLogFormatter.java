@@ -0,0 +1,49 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.util.Locale;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+// java.util.logging 메시지의 {0}, {1} 인자를 조사를 교정해서 형식화한다. 로그가 출력될 때만 형식화한다.
+// 출력 형식은 SimpleFormatter와 같다. (java.util.logging.SimpleFormatter.format 속성)
+// ex) handler.setFormatter(new JosaLogFormatter());
+//     logger.log(Level.FINE, "{0}을 삭제했습니다.", fileName);
+public class JosaLogFormatter extends SimpleFormatter {
+    private final JosaFormatter josaFormatter;
+    private final Locale locale;
+
+    public JosaLogFormatter() {
+        this(KoreanUtils.getDefaultJosaFormatter(), Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    public JosaLogFormatter(JosaFormatter josaFormatter, Locale locale) {
+        this.josaFormatter = josaFormatter;
+        this.locale = locale;
+    }
+
+    // java.util.logging.Formatter.formatMessage()와 같이 ResourceBundle을 적용하고, 인자가 있으면 MessageFormat 문법으로 형식화한다.
+    @Override
+    public String formatMessage(LogRecord record) {
+        String message = record.getMessage();
+        ResourceBundle resourceBundle = record.getResourceBundle();
+        if (resourceBundle != null && message != null) {
+            try {
+                message = resourceBundle.getString(message);
+            } catch (MissingResourceException ignore) {
+            }
+        }
+
+        Object[] parameters = record.getParameters();
+        if (message == null || parameters == null || parameters.length == 0 || message.indexOf('{') < 0) {
+            return message;
+        }
+
+        try {
+            return josaFormatter.formatMessage(locale, message, parameters);
+        } catch (IllegalArgumentException e) {
+            return message;
+        }
+    }
+}
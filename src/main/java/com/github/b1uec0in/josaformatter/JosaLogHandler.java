@@ -0,0 +1,48 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+// 다른 Handler에 전달하기 전에 메시지를 조사를 교정해서 형식화한다.
+// Handler의 level, filter를 통과한 로그만 형식화하고, 원래의 LogRecord는 변경하지 않는다. (부모 logger의 handler에 영향 없음)
+// ex) logger.addHandler(new JosaLogHandler(new FileHandler("app.log")));
+public class JosaLogHandler extends Handler {
+    private final Handler handler;
+    private final JosaLogFormatter josaLogFormatter;
+
+    public JosaLogHandler(Handler handler) {
+        this(handler, new JosaLogFormatter());
+    }
+
+    public JosaLogHandler(Handler handler, JosaLogFormatter josaLogFormatter) {
+        this.handler = handler;
+        this.josaLogFormatter = josaLogFormatter;
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (!isLoggable(record) || !handler.isLoggable(record)) {
+            return;
+        }
+
+        LogRecord formattedRecord = new LogRecord(record.getLevel(), josaLogFormatter.formatMessage(record));
+        formattedRecord.setLoggerName(record.getLoggerName());
+        formattedRecord.setMillis(record.getMillis());
+        formattedRecord.setSequenceNumber(record.getSequenceNumber());
+        formattedRecord.setSourceClassName(record.getSourceClassName());
+        formattedRecord.setSourceMethodName(record.getSourceMethodName());
+        formattedRecord.setThreadID(record.getThreadID());
+        formattedRecord.setThrown(record.getThrown());
+        handler.publish(formattedRecord);
+    }
+
+    @Override
+    public void flush() {
+        handler.flush();
+    }
+
+    @Override
+    public void close() throws SecurityException {
+        handler.close();
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.util.Locale;
+
+// 처음 사용할 때 형식화하는 메시지. 대부분 버려지는 로그 메시지를 만들 때 사용한다.
+// toString(), length(), charAt() 등을 처음 호출할 때 템플릿 컴파일, 형식화, 조사 교정을 하고 결과를 재사용한다.
+// 인자 배열과 인자 객체는 복사하지 않으므로 형식화 전에 변경하면 결과에 반영된다.
+// ex) logger.log(Level.FINE, "{0}", KoreanUtils.lazyFormat("%s을 삭제했습니다.", fileName));
+public final class JosaMessage implements CharSequence {
+    private final JosaFormatter josaFormatter;
+    private final Locale locale;
+    private final String pattern;
+    private final JosaMessageCatalog.Syntax syntax;
+    private final JosaTemplate template;
+    private final Object[] args;
+
+    // 여러 쓰레드에서 동시에 형식화해도 결과는 같으므로 동기화하지 않는다.
+    private volatile String text;
+
+    private JosaMessage(JosaFormatter josaFormatter, Locale locale, String pattern, JosaMessageCatalog.Syntax syntax, JosaTemplate template, Object[] args) {
+        this.josaFormatter = josaFormatter;
+        this.locale = locale;
+        this.pattern = pattern;
+        this.syntax = syntax;
+        this.template = template;
+        this.args = args;
+    }
+
+    // String.format 문법
+    public static JosaMessage format(JosaFormatter josaFormatter, Locale l, String format, Object... args) {
+        return new JosaMessage(josaFormatter, l, format, JosaMessageCatalog.Syntax.FORMAT, null, args);
+    }
+
+    // java.text.MessageFormat 문법
+    public static JosaMessage formatMessage(JosaFormatter josaFormatter, Locale l, String pattern, Object... args) {
+        return new JosaMessage(josaFormatter, l, pattern, JosaMessageCatalog.Syntax.MESSAGE_FORMAT, null, args);
+    }
+
+    // 미리 컴파일한 템플릿 ex) JosaMessage.of(catalog.getTemplate("confirm.change"), "아이폰", "Galaxy")
+    public static JosaMessage of(JosaTemplate template, Object... args) {
+        return new JosaMessage(template.getJosaFormatter(), template.getLocale(), template.getPattern(), null, template, args);
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    // 형식화 되었는지 여부
+    public boolean isRendered() {
+        return text != null;
+    }
+
+    @Override
+    public String toString() {
+        String text = this.text;
+        if (text == null) {
+            text = render();
+            this.text = text;
+        }
+
+        return text;
+    }
+
+    private String render() {
+        if (template != null) {
+            return template.format(args);
+        }
+        if (syntax == JosaMessageCatalog.Syntax.MESSAGE_FORMAT) {
+            return josaFormatter.formatMessage(locale, pattern, args);
+        }
+
+        return josaFormatter.format(locale, pattern, args);
+    }
+
+    @Override
+    public int length() {
+        return toString().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+}
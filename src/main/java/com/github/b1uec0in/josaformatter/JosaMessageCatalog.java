@@ -0,0 +1,172 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.Properties;
+import java.util.ResourceBundle;
+import java.util.Set;
+
+// 메시지 목록(ResourceBundle, .properties)을 시작할 때 한번에 컴파일해 두고 key로 찾아서 사용한다.
+// ex) JosaMessageCatalog catalog = JosaMessageCatalog.load(josaFormatter, Locale.KOREAN, ResourceBundle.getBundle("messages"), JosaMessageCatalog.Syntax.FORMAT, 4);
+//     catalog.format("confirm.change", "아이폰", "Galaxy");
+// JosaFormatter의 endSkipChars, josaBoundaryChars를 바꾸면 다시 load()해야 한다. (JosaTemplate 참고)
+public class JosaMessageCatalog {
+
+    public enum Syntax {
+        FORMAT,         // String.format 문법. ex) "%s를 %s으로 변경할까요?"
+        MESSAGE_FORMAT  // java.text.MessageFormat 문법. ex) "{0}를 {1}으로 변경할까요?"
+    }
+
+    private final Locale locale;
+    private final Syntax syntax;
+    final HashMap<String, JosaTemplate> templates;
+
+    JosaMessageCatalog(Locale locale, Syntax syntax, HashMap<String, JosaTemplate> templates) {
+        this.locale = locale;
+        this.syntax = syntax;
+        this.templates = templates;
+    }
+
+    public static JosaMessageCatalog load(JosaFormatter josaFormatter, Locale locale, ResourceBundle bundle, Syntax syntax, int parallelism) {
+        LinkedHashMap<String, String> messages = new LinkedHashMap<>();
+        Enumeration<String> keys = bundle.getKeys();
+        while (keys.hasMoreElements()) {
+            String key = keys.nextElement();
+            Object value = bundle.getObject(key);
+            if (value instanceof String) {
+                messages.put(key, (String) value);
+            }
+        }
+
+        return load(josaFormatter, locale, messages, syntax, parallelism);
+    }
+
+    public static JosaMessageCatalog load(JosaFormatter josaFormatter, Locale locale, Properties properties, Syntax syntax, int parallelism) {
+        LinkedHashMap<String, String> messages = new LinkedHashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            messages.put(key, properties.getProperty(key));
+        }
+
+        return load(josaFormatter, locale, messages, syntax, parallelism);
+    }
+
+    // .properties 파일은 UTF-8로 읽는다.
+    public static JosaMessageCatalog load(JosaFormatter josaFormatter, Locale locale, InputStream inputStream, Syntax syntax, int parallelism) throws IOException {
+        Properties properties = new Properties();
+        Reader reader = new InputStreamReader(inputStream, "UTF-8");
+        try {
+            properties.load(reader);
+        } finally {
+            reader.close();
+        }
+
+        return load(josaFormatter, locale, properties, syntax, parallelism);
+    }
+
+    // JosaCatalogCompiler로 미리 컴파일한 바이너리 파일을 읽는다. 조사 검색 없이 바로 사용할 수 있다.
+    public static JosaMessageCatalog loadCompiled(JosaFormatter josaFormatter, InputStream inputStream) throws IOException {
+        return JosaCatalogArchive.read(josaFormatter, inputStream);
+    }
+
+    // 파일을 memory-mapped ByteBuffer로 읽은 경우
+    public static JosaMessageCatalog loadCompiled(JosaFormatter josaFormatter, ByteBuffer byteBuffer) throws IOException {
+        return JosaCatalogArchive.read(josaFormatter, byteBuffer);
+    }
+
+    public void writeCompiled(OutputStream outputStream) throws IOException {
+        JosaCatalogArchive.write(this, outputStream);
+    }
+
+    // parallelism이 1보다 크면 여러 쓰레드에서 나눠서 컴파일한다.
+    public static JosaMessageCatalog load(final JosaFormatter josaFormatter, final Locale locale, Map<String, String> messages, final Syntax syntax, int parallelism) {
+        final ArrayList<Map.Entry<String, String>> entries = new ArrayList<>(messages.entrySet());
+        final JosaTemplate[] compiled = new JosaTemplate[entries.size()];
+
+        ParallelChunks.run(entries.size(), Math.min(parallelism, entries.size()), new ParallelChunks.Task() {
+            @Override
+            public void run(int begin, int end) {
+                compile(josaFormatter, locale, syntax, entries, compiled, begin, end);
+            }
+        });
+
+        // 생성 이후에는 읽기만 하므로 HashMap을 공유해도 안전하다.
+        HashMap<String, JosaTemplate> templates = new HashMap<>(entries.size() * 4 / 3 + 1);
+        for (int i = 0; i < compiled.length; ++i) {
+            templates.put(entries.get(i).getKey(), compiled[i]);
+        }
+
+        return new JosaMessageCatalog(locale, syntax, templates);
+    }
+
+    private static void compile(JosaFormatter josaFormatter, Locale locale, Syntax syntax, List<Map.Entry<String, String>> entries, JosaTemplate[] compiled, int begin, int end) {
+        for (int i = begin; i < end; ++i) {
+            Map.Entry<String, String> entry = entries.get(i);
+            try {
+                compiled[i] = compile(josaFormatter, locale, syntax, entry.getValue());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("invalid message '" + entry.getKey() + "': " + e.getMessage(), e);
+            }
+        }
+    }
+
+    static JosaTemplate compile(JosaFormatter josaFormatter, Locale locale, Syntax syntax, String pattern) {
+        if (syntax == Syntax.MESSAGE_FORMAT) {
+            return JosaMessageFormat.compile(josaFormatter, locale, pattern);
+        }
+
+        return JosaFormatTemplate.compile(josaFormatter, locale, pattern);
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    public Syntax getSyntax() {
+        return syntax;
+    }
+
+    // 없으면 null
+    public JosaTemplate getTemplate(String key) {
+        return templates.get(key);
+    }
+
+    public boolean containsKey(String key) {
+        return templates.containsKey(key);
+    }
+
+    public String format(String key, Object... args) {
+        JosaTemplate template = templates.get(key);
+        if (template == null) {
+            throw new MissingResourceException("Can't find message for key " + key, JosaMessageCatalog.class.getName(), key);
+        }
+
+        return template.format(args);
+    }
+
+    // 조사 교정이 필요한 메시지인지 여부
+    public boolean hasJosa(String key) {
+        JosaTemplate template = templates.get(key);
+        return template != null && template.hasJosa();
+    }
+
+    public Set<String> keySet() {
+        return Collections.unmodifiableSet(templates.keySet());
+    }
+
+    public int size() {
+        return templates.size();
+    }
+}
@@ -0,0 +1,434 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.text.ChoiceFormat;
+import java.text.DateFormat;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.Format;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+// java.text.MessageFormat 문법({0}, {0,number}, {0,choice,...})을 지원하는 조사 교정 템플릿.
+// MessageFormat과 달리 컴파일된 객체를 여러 쓰레드에서 동기화 없이 공유할 수 있다.
+// ex) JosaMessageFormat.format("{0}을 {1}로 변경할까요?", "아이폰", "Galaxy");
+public final class JosaMessageFormat extends JosaTemplate {
+
+    private JosaMessageFormat(JosaFormatter josaFormatter, Locale locale, String pattern, List<Segment> segments, boolean locateJosa) {
+        super(josaFormatter, locale, pattern, segments, locateJosa);
+    }
+
+    // 조사 위치가 이미 지정된 segment로 생성. (JosaCatalogArchive)
+    static JosaMessageFormat create(JosaFormatter josaFormatter, Locale locale, String pattern, List<Segment> segments) {
+        return new JosaMessageFormat(josaFormatter, locale, pattern, segments, false);
+    }
+
+    // MessageFormat.format(pattern, args) 대체. 컴파일 결과는 기본 JosaFormatter에 캐시된다.
+    public static String format(String pattern, Object... args) {
+        return KoreanUtils.getDefaultJosaFormatter().formatMessage(pattern, args);
+    }
+
+    public static JosaMessageFormat compile(JosaFormatter josaFormatter, Locale locale, String pattern) {
+        ArrayList<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+
+        // MessageFormat.applyPattern()과 동일한 규칙으로 분석한다.
+        // part 0: 문자열, 1: 인자 번호, 2: 형식, 3: 스타일
+        StringBuilder[] parts = new StringBuilder[4];
+        int part = 0;
+        boolean inQuote = false;
+        int braceStack = 0;
+        int length = pattern.length();
+
+        for (int i = 0; i < length; ++i) {
+            char ch = pattern.charAt(i);
+            if (part == 0) {
+                if (ch == '\'') {
+                    if (i + 1 < length && pattern.charAt(i + 1) == '\'') {
+                        literal.append(ch);
+                        ++i;
+                    } else {
+                        inQuote = !inQuote;
+                    }
+                } else if (ch == '{' && !inQuote) {
+                    part = 1;
+                    for (int j = 1; j < parts.length; ++j) {
+                        parts[j] = new StringBuilder();
+                    }
+                } else {
+                    literal.append(ch);
+                }
+            } else {
+                if (inQuote) {
+                    parts[part].append(ch);
+                    if (ch == '\'') {
+                        inQuote = false;
+                    }
+                } else {
+                    switch (ch) {
+                        case ',':
+                            if (part < 3) {
+                                ++part;
+                            } else {
+                                parts[part].append(ch);
+                            }
+                            break;
+                        case '{':
+                            ++braceStack;
+                            parts[part].append(ch);
+                            break;
+                        case '}':
+                            if (braceStack == 0) {
+                                part = 0;
+                                if (literal.length() > 0) {
+                                    segments.add(new Segment(literal.toString()));
+                                    literal.setLength(0);
+                                }
+                                segments.add(new Segment(createArgument(josaFormatter, locale, parts)));
+                            } else {
+                                --braceStack;
+                                parts[part].append(ch);
+                            }
+                            break;
+                        case ' ':
+                            // 형식 앞의 공백은 무시
+                            if (part != 2 || parts[2].length() > 0) {
+                                parts[part].append(ch);
+                            }
+                            break;
+                        case '\'':
+                            inQuote = true;
+                            parts[part].append(ch);
+                            break;
+                        default:
+                            parts[part].append(ch);
+                            break;
+                    }
+                }
+            }
+        }
+
+        if (braceStack == 0 && part != 0) {
+            throw new IllegalArgumentException("Unmatched braces in the pattern.");
+        }
+
+        if (literal.length() > 0) {
+            segments.add(new Segment(literal.toString()));
+        }
+
+        return new JosaMessageFormat(josaFormatter, locale, pattern, segments, true);
+    }
+
+    private static Argument createArgument(JosaFormatter josaFormatter, Locale locale, StringBuilder[] parts) {
+        int index;
+        try {
+            index = Integer.parseInt(parts[1].toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("can't parse argument number: " + parts[1], e);
+        }
+        if (index < 0) {
+            throw new IllegalArgumentException("negative argument number: " + index);
+        }
+
+        return createArgument(josaFormatter, locale, index, parts[2].toString() + "," + parts[3].toString());
+    }
+
+    // spec: "형식,스타일" ex) "number,integer", "choice,0#파일|1#파일 {0}개"
+    static Argument createArgument(JosaFormatter josaFormatter, Locale locale, int index, String spec) {
+        int comma = spec.indexOf(',');
+        String type = spec.substring(0, comma).trim().toLowerCase(Locale.ROOT);
+        String style = spec.substring(comma + 1);
+        String styleKeyword = style.trim().toLowerCase(Locale.ROOT);
+
+        switch (type) {
+            case "":
+                return new DefaultArgument(index, spec, locale);
+
+            case "number":
+                switch (styleKeyword) {
+                    case "":
+                        return new NumberArgument(index, spec, NumberFormat.getInstance(locale));
+                    case "currency":
+                        return new NumberArgument(index, spec, NumberFormat.getCurrencyInstance(locale));
+                    case "percent":
+                        return new NumberArgument(index, spec, NumberFormat.getPercentInstance(locale));
+                    case "integer":
+                        return new NumberArgument(index, spec, NumberFormat.getIntegerInstance(locale));
+                    default:
+                        return new NumberArgument(index, spec, new DecimalFormat(style, DecimalFormatSymbols.getInstance(locale)));
+                }
+
+            case "date":
+            case "time":
+                int dateStyle;
+                switch (styleKeyword) {
+                    case "":
+                        dateStyle = DateFormat.DEFAULT;
+                        break;
+                    case "short":
+                        dateStyle = DateFormat.SHORT;
+                        break;
+                    case "medium":
+                        dateStyle = DateFormat.MEDIUM;
+                        break;
+                    case "long":
+                        dateStyle = DateFormat.LONG;
+                        break;
+                    case "full":
+                        dateStyle = DateFormat.FULL;
+                        break;
+                    default:
+                        return new FormatArgument(index, spec, new SimpleDateFormat(style, locale));
+                }
+                return new FormatArgument(index, spec, type.equals("date") ? DateFormat.getDateInstance(dateStyle, locale) : DateFormat.getTimeInstance(dateStyle, locale));
+
+            case "choice":
+                return new ChoiceArgument(index, spec, new ChoiceFormat(style), josaFormatter, locale);
+
+            default:
+                throw new IllegalArgumentException("unknown format type: " + spec.substring(0, comma));
+        }
+    }
+
+    private static String missingArgument(int index) {
+        return "{" + index + "}";
+    }
+
+    // 형식이 지정되지 않은 인자. MessageFormat과 동일하게 타입에 따라 기본 형식을 사용한다.
+    static final class DefaultArgument extends Argument {
+        private final Locale locale;
+        private volatile NumberArgument numberArgument;
+        private volatile FormatArgument dateArgument;
+
+        DefaultArgument(int index, String spec, Locale locale) {
+            super(index, spec);
+            this.locale = locale;
+        }
+
+        @Override
+        String format(Object[] args) {
+            if (args == null || index >= args.length) {
+                return missingArgument(index);
+            }
+
+            Object arg = args[index];
+            if (arg == null) {
+                return "null";
+            }
+            if (arg instanceof String) {
+                return (String) arg;
+            }
+            if (arg instanceof JosaAware) {
+                String text = ((JosaAware) arg).getJosaText();
+                if (text != null) {
+                    return text;
+                }
+            }
+            if (arg instanceof Number) {
+                return getNumberArgument().format(args);
+            }
+            if (arg instanceof Date) {
+                FormatArgument dateArgument = this.dateArgument;
+                if (dateArgument == null) {
+                    dateArgument = new FormatArgument(index, spec, DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale));
+                    this.dateArgument = dateArgument;
+                }
+                return dateArgument.format(args);
+            }
+
+            String str = arg.toString();
+            return str != null ? str : "null";
+        }
+
+        @Override
+        void formatTo(StringBuilder sb, Object[] args, JosaRenderContext context) {
+            if (args != null && index < args.length) {
+                Object arg = args[index];
+                if (arg instanceof String) {
+                    sb.append((String) arg);
+                    return;
+                }
+                if (arg instanceof Number) {
+                    getNumberArgument().formatTo(sb, args, context);
+                    return;
+                }
+            }
+
+            sb.append(format(args));
+        }
+
+        @Override
+        Object getPlainArgument(Object[] args) {
+            if (args != null && index < args.length) {
+                Object arg = args[index];
+                if (!(arg instanceof Number) && !(arg instanceof Date)) {
+                    return arg;
+                }
+            }
+            return null;
+        }
+
+        private NumberArgument getNumberArgument() {
+            NumberArgument numberArgument = this.numberArgument;
+            if (numberArgument == null) {
+                numberArgument = new NumberArgument(index, spec, NumberFormat.getInstance(locale));
+                this.numberArgument = numberArgument;
+            }
+            return numberArgument;
+        }
+    }
+
+    // java.text.Format은 쓰레드에 안전하지 않으므로 원본은 공유하지 않고 복제해서 사용한다.
+    static class FormatArgument extends Argument {
+        private final Format format;
+
+        FormatArgument(int index, String spec, Format format) {
+            super(index, spec);
+            this.format = format;
+        }
+
+        @Override
+        String format(Object[] args) {
+            if (args == null || index >= args.length) {
+                return missingArgument(index);
+            }
+
+            Object arg = args[index];
+            if (arg == null) {
+                return "null";
+            }
+
+            return ((Format) format.clone()).format(arg);
+        }
+    }
+
+    // 정수 타입은 Format을 복제하지 않고 직접 자릿수 구분 기호를 넣는다.
+    static final class NumberArgument extends FormatArgument {
+        private final boolean isSimpleGrouping;
+        private final char groupingSeparator;
+        private final char minusSign;
+
+        NumberArgument(int index, String spec, NumberFormat numberFormat) {
+            super(index, spec, numberFormat);
+
+            boolean isSimpleGrouping = false;
+            char groupingSeparator = ',';
+            char minusSign = '-';
+            if (numberFormat instanceof DecimalFormat) {
+                DecimalFormat decimalFormat = (DecimalFormat) numberFormat;
+                DecimalFormatSymbols symbols = decimalFormat.getDecimalFormatSymbols();
+                groupingSeparator = symbols.getGroupingSeparator();
+                minusSign = symbols.getMinusSign();
+
+                isSimpleGrouping = decimalFormat.isGroupingUsed()
+                        && decimalFormat.getGroupingSize() == 3
+                        && decimalFormat.getMinimumIntegerDigits() <= 1
+                        && decimalFormat.getMaximumIntegerDigits() >= 19
+                        && decimalFormat.getMinimumFractionDigits() == 0
+                        && decimalFormat.getMultiplier() == 1
+                        && symbols.getZeroDigit() == '0'
+                        && decimalFormat.getPositivePrefix().isEmpty()
+                        && decimalFormat.getPositiveSuffix().isEmpty()
+                        && decimalFormat.getNegativePrefix().equals(String.valueOf(minusSign))
+                        && decimalFormat.getNegativeSuffix().isEmpty();
+            }
+            this.isSimpleGrouping = isSimpleGrouping;
+            this.groupingSeparator = groupingSeparator;
+            this.minusSign = minusSign;
+        }
+
+        @Override
+        String format(Object[] args) {
+            if (isSimpleGrouping && args != null && index < args.length) {
+                Object arg = args[index];
+                if (arg instanceof Integer || arg instanceof Long || arg instanceof Short || arg instanceof Byte) {
+                    return formatGrouped(((Number) arg).longValue());
+                }
+            }
+
+            return super.format(args);
+        }
+
+        @Override
+        void formatTo(StringBuilder sb, Object[] args, JosaRenderContext context) {
+            if (isSimpleGrouping && args != null && index < args.length) {
+                Object arg = args[index];
+                if (arg instanceof Integer || arg instanceof Long || arg instanceof Short || arg instanceof Byte) {
+                    appendGrouped(sb, ((Number) arg).longValue(), context.digits);
+                    return;
+                }
+            }
+
+            super.formatTo(sb, args, context);
+        }
+
+        private String formatGrouped(long value) {
+            if (value >= 0 && value < 1000) {
+                return Long.toString(value);
+            }
+
+            StringBuilder sb = new StringBuilder(26);
+            appendGrouped(sb, value, new char[19]);
+            return sb.toString();
+        }
+
+        // digits: 최소 19자리
+        private void appendGrouped(StringBuilder sb, long value, char[] digits) {
+            // Long.MIN_VALUE도 처리할 수 있도록 음수로 계산한다.
+            long negative = value < 0 ? value : -value;
+            int begin = digits.length;
+            do {
+                digits[--begin] = (char) ('0' - negative % 10);
+                negative /= 10;
+            } while (negative != 0);
+
+            if (value < 0) {
+                sb.append(minusSign);
+            }
+            int digitCount = digits.length - begin;
+            for (int i = 0; i < digitCount; ++i) {
+                if (i > 0 && (digitCount - i) % 3 == 0) {
+                    sb.append(groupingSeparator);
+                }
+                sb.append(digits[begin + i]);
+            }
+        }
+    }
+
+    // ChoiceFormat.format()은 내부 상태를 변경하지 않으므로 공유해서 사용한다.
+    // 결과에 '{'가 있으면 MessageFormat과 동일하게 다시 한번 형식화한다.
+    static final class ChoiceArgument extends Argument {
+        private final ChoiceFormat choiceFormat;
+        private final JosaFormatter josaFormatter;
+        private final Locale locale;
+
+        ChoiceArgument(int index, String spec, ChoiceFormat choiceFormat, JosaFormatter josaFormatter, Locale locale) {
+            super(index, spec);
+            this.choiceFormat = choiceFormat;
+            this.josaFormatter = josaFormatter;
+            this.locale = locale;
+        }
+
+        @Override
+        String format(Object[] args) {
+            if (args == null || index >= args.length) {
+                return missingArgument(index);
+            }
+
+            Object arg = args[index];
+            if (arg == null) {
+                return "null";
+            }
+
+            String str = choiceFormat.format(arg);
+            if (str.indexOf('{') >= 0) {
+                return josaFormatter.getMessageFormat(locale, str).format(args);
+            }
+
+            return str;
+        }
+    }
+}
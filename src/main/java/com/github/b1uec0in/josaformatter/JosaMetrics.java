@@ -0,0 +1,252 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// 기본 통계 수집 구현.
+// ex) JosaMetrics josaMetrics = new JosaMetrics();
+//     KoreanUtils.getDefaultJosaFormatter().setMetricsListener(josaMetrics);
+//     josaMetrics.getDetectorCounts(); // {HangulJongSungDetector=120, EnglishJongSungDetector=30, ...}
+public class JosaMetrics implements JosaMetricsListener {
+    public static final int DEFAULT_FALLBACK_SAMPLE_SIZE = 16;
+    public static final int DEFAULT_FALLBACK_SAMPLE_INTERVAL = 1;
+
+    // 판단 불가 문자열은 마지막 일부만 기록한다.
+    private static final int FALLBACK_TAIL_LENGTH = 16;
+
+    // 사용 횟수를 기록할 최대 템플릿 수
+    private static final int MAX_TRACKED_TEMPLATES = 10000;
+
+    // 지연 시간 분포. 2의 거듭제곱 구간을 다시 4개로 나눈다.
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private final ConcurrentHashMap<Class<?>, StripedCounter> detectorCounters = new ConcurrentHashMap<>();
+    private final StripedCounter fallbackCounter = new StripedCounter();
+    private final StripedCounter josaFoundCounter = new StripedCounter();
+    private final StripedCounter josaNotFoundCounter = new StripedCounter();
+    private final StripedCounter templateParseCounter = new StripedCounter();
+    private final StripedCounter formatCounter = new StripedCounter();
+    private final StripedCounter formatNanos = new StripedCounter();
+    private final AtomicLongArray latencyBuckets = new AtomicLongArray(64 * SUB_BUCKET_COUNT);
+
+    // 형식 문자열 -> 사용 횟수
+    private final ConcurrentHashMap<String, AtomicLong> templateCounters = new ConcurrentHashMap<>();
+
+    // 판단 불가 문자열 sample. fallbackSampleInterval 번에 한번씩 순환 버퍼에 기록한다.
+    private final AtomicReferenceArray<String> fallbackSamples;
+    private final int fallbackSampleInterval;
+    private final AtomicLong fallbackSequence = new AtomicLong();
+
+    public JosaMetrics() {
+        this(DEFAULT_FALLBACK_SAMPLE_SIZE, DEFAULT_FALLBACK_SAMPLE_INTERVAL);
+    }
+
+    public JosaMetrics(int fallbackSampleSize, int fallbackSampleInterval) {
+        this.fallbackSamples = new AtomicReferenceArray<>(Math.max(fallbackSampleSize, 1));
+        this.fallbackSampleInterval = Math.max(fallbackSampleInterval, 1);
+    }
+
+    @Override
+    public void onJongSungDetected(JosaFormatter.JongSungDetector jongSungDetector) {
+        Class<?> type = jongSungDetector.getClass();
+        StripedCounter counter = detectorCounters.get(type);
+        if (counter == null) {
+            StripedCounter newCounter = new StripedCounter();
+            counter = detectorCounters.putIfAbsent(type, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        counter.increment();
+    }
+
+    @Override
+    public void onFallback(String text) {
+        fallbackCounter.increment();
+
+        long sequence = fallbackSequence.getAndIncrement();
+        if (sequence % fallbackSampleInterval == 0) {
+            String tail = text.length() > FALLBACK_TAIL_LENGTH ? text.substring(text.length() - FALLBACK_TAIL_LENGTH) : text;
+            fallbackSamples.set((int) ((sequence / fallbackSampleInterval) % fallbackSamples.length()), tail);
+        }
+    }
+
+    @Override
+    public void onJosaFound(JosaFormatter.JosaMatch josaMatch) {
+        josaFoundCounter.increment();
+    }
+
+    @Override
+    public void onJosaNotFound() {
+        josaNotFoundCounter.increment();
+    }
+
+    @Override
+    public void onTemplateParsed(JosaTemplate template) {
+        templateParseCounter.increment();
+    }
+
+    @Override
+    public void onFormatted(JosaTemplate template, long elapsedNanos) {
+        formatCounter.increment();
+        formatNanos.add(elapsedNanos);
+        latencyBuckets.incrementAndGet(getLatencyBucket(elapsedNanos));
+
+        String pattern = template.getPattern();
+        AtomicLong counter = templateCounters.get(pattern);
+        if (counter == null) {
+            if (templateCounters.size() >= MAX_TRACKED_TEMPLATES) {
+                return;
+            }
+            AtomicLong newCounter = new AtomicLong();
+            counter = templateCounters.putIfAbsent(pattern, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        counter.incrementAndGet();
+    }
+
+    static int getLatencyBucket(long nanos) {
+        if (nanos < SUB_BUCKET_COUNT) {
+            return (int) Math.max(nanos, 0);
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    // 구간에 속하는 가장 큰 값
+    static long getLatencyBucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+
+        int shift = (bucket >> SUB_BUCKET_BITS) - 1;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + (bucket & (SUB_BUCKET_COUNT - 1))) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    // JongSungDetector 클래스 이름 -> 판단 횟수
+    public Map<String, Long> getDetectorCounts() {
+        LinkedHashMap<String, Long> counts = new LinkedHashMap<>();
+        for (Map.Entry<Class<?>, StripedCounter> entry : detectorCounters.entrySet()) {
+            counts.put(entry.getKey().getSimpleName(), entry.getValue().sum());
+        }
+        return counts;
+    }
+
+    public long getDetectedCount() {
+        long count = 0;
+        for (StripedCounter counter : detectorCounters.values()) {
+            count += counter.sum();
+        }
+        return count;
+    }
+
+    public long getFallbackCount() {
+        return fallbackCounter.sum();
+    }
+
+    public List<String> getFallbackSamples() {
+        ArrayList<String> samples = new ArrayList<>();
+        for (int i = 0; i < fallbackSamples.length(); ++i) {
+            String sample = fallbackSamples.get(i);
+            if (sample != null) {
+                samples.add(sample);
+            }
+        }
+        return samples;
+    }
+
+    public long getJosaFoundCount() {
+        return josaFoundCounter.sum();
+    }
+
+    public long getJosaNotFoundCount() {
+        return josaNotFoundCounter.sum();
+    }
+
+    public long getTemplateParseCount() {
+        return templateParseCounter.sum();
+    }
+
+    public long getFormatCount() {
+        return formatCounter.sum();
+    }
+
+    public double getAverageLatencyNanos() {
+        long count = formatCounter.sum();
+        return count > 0 ? (double) formatNanos.sum() / count : 0;
+    }
+
+    // percentile: 0 ~ 100. 분포 구간의 최대값이므로 근사값이다.
+    public long getLatencyPercentileNanos(double percentile) {
+        long total = 0;
+        for (int i = 0; i < latencyBuckets.length(); ++i) {
+            total += latencyBuckets.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long count = 0;
+        for (int i = 0; i < latencyBuckets.length(); ++i) {
+            count += latencyBuckets.get(i);
+            if (count >= target) {
+                return getLatencyBucketUpperBound(i);
+            }
+        }
+
+        return getLatencyBucketUpperBound(latencyBuckets.length() - 1);
+    }
+
+    // 형식 문자열 -> 사용 횟수. 많이 사용된 순서.
+    public Map<String, Long> getHottestTemplates(int count) {
+        ArrayList<Map.Entry<String, Long>> entries = new ArrayList<>();
+        for (Map.Entry<String, AtomicLong> entry : templateCounters.entrySet()) {
+            entries.add(new AbstractMap.SimpleEntry<>(entry.getKey(), entry.getValue().get()));
+        }
+        Collections.sort(entries, new Comparator<Map.Entry<String, Long>>() {
+            @Override
+            public int compare(Map.Entry<String, Long> lhs, Map.Entry<String, Long> rhs) {
+                return rhs.getValue().compareTo(lhs.getValue());
+            }
+        });
+
+        LinkedHashMap<String, Long> hottestTemplates = new LinkedHashMap<>();
+        for (int i = 0; i < entries.size() && i < count; ++i) {
+            hottestTemplates.put(entries.get(i).getKey(), entries.get(i).getValue());
+        }
+        return hottestTemplates;
+    }
+
+    public void reset() {
+        detectorCounters.clear();
+        fallbackCounter.reset();
+        josaFoundCounter.reset();
+        josaNotFoundCounter.reset();
+        templateParseCounter.reset();
+        formatCounter.reset();
+        formatNanos.reset();
+        for (int i = 0; i < latencyBuckets.length(); ++i) {
+            latencyBuckets.set(i, 0);
+        }
+        templateCounters.clear();
+        for (int i = 0; i < fallbackSamples.length(); ++i) {
+            fallbackSamples.set(i, null);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.b1uec0in.josaformatter;
+
+// 조사 교정 과정 통계를 수집하기 위한 listener. JosaFormatter.setMetricsListener()로 등록한다.
+// 등록하지 않으면 호출되지 않는다. 여러 쓰레드에서 동시에 호출될 수 있다.
+public interface JosaMetricsListener {
+    // JongSungDetector가 종성을 판단함 (JongSungCache에서 찾은 경우는 제외)
+    void onJongSungDetected(JosaFormatter.JongSungDetector jongSungDetector);
+
+    // 판단할 수 있는 JongSungDetector가 없어서 괄호 표현식을 사용함. ex) "???을(를)"
+    void onFallback(String text);
+
+    // 인자 뒤의 문자열에서 조사를 찾음
+    void onJosaFound(JosaFormatter.JosaMatch josaMatch);
+
+    // 인자 뒤의 문자열에 교정할 조사가 없음
+    void onJosaNotFound();
+
+    // 형식 문자열을 분석해서 템플릿을 생성함
+    void onTemplateParsed(JosaTemplate template);
+
+    // 템플릿으로 문자열을 생성함
+    void onFormatted(JosaTemplate template, long elapsedNanos);
+}
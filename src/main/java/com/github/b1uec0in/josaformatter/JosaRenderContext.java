@@ -0,0 +1,201 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// 템플릿을 형식화할 때 사용하는 임시 버퍼 모음. 재사용하면 형식화 중에 메모리를 할당하지 않는다.
+// 쓰레드에 안전하지 않으므로 동시에 한 쓰레드에서만 사용해야 한다.
+// ThreadLocal은 사용하지 않는다. 호출하는 쪽에서 직접 넘기거나 Pool에서 빌려서 사용한다.
+// ex) JosaRenderContext context = new JosaRenderContext();
+//     template.formatTo(context, sb, "홍길동");
+public final class JosaRenderContext {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    // format(JosaRenderContext, ...)의 결과 버퍼
+    final StringBuilder output;
+
+    // 읽기 규칙을 적용한 인자 문자열
+    final StringBuilder readText;
+
+    // 자릿수 구분 기호를 넣기 전의 숫자. long 최대 19자리
+    final char[] digits = new char[19];
+
+    // encodeTo()에서 UTF-8로 인코딩하기 전의 인자 문자열
+    final StringBuilder argumentText;
+
+    // 템플릿에서 여러번 사용하는 인자의 위치와 종성 유형. slot마다 [start, end, 종성 유형]
+    private int[] repeatedArguments = new int[12];
+
+    // encodeTo()에서 여러번 사용하는 인자 문자열
+    final StringBuilder repeatedArgumentText;
+
+    // encodeTo()에서 ByteBuffer에 다 쓰지 못한 byte. [overflowStart, overflowEnd)
+    private byte[] overflow = new byte[0];
+    private int overflowStart;
+    private int overflowEnd;
+
+    public JosaRenderContext() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    // capacity: 결과 문자열의 예상 최대 길이
+    public JosaRenderContext(int capacity) {
+        output = new StringBuilder(capacity);
+        readText = new StringBuilder(Math.min(capacity, 64));
+        argumentText = new StringBuilder(Math.min(capacity, 64));
+        repeatedArgumentText = new StringBuilder(Math.min(capacity, 64));
+    }
+
+    public void reset() {
+        output.setLength(0);
+        readText.setLength(0);
+        argumentText.setLength(0);
+        repeatedArgumentText.setLength(0);
+        overflowStart = 0;
+        overflowEnd = 0;
+    }
+
+    // 아직 형식화하지 않은 상태(start = -1)로 초기화해서 반환한다.
+    int[] getRepeatedArguments(int slotCount) {
+        if (repeatedArguments.length < slotCount * 3) {
+            repeatedArguments = new int[slotCount * 3];
+        }
+        for (int i = 0; i < slotCount; ++i) {
+            repeatedArguments[i * 3] = -1;
+        }
+
+        return repeatedArguments;
+    }
+
+    // encodeTo()에서 ByteBuffer에 다 쓰지 못하고 남은 byte가 있는지 여부
+    public boolean hasRemaining() {
+        return overflowEnd > overflowStart;
+    }
+
+    // 남은 byte 수
+    public int remaining() {
+        return overflowEnd - overflowStart;
+    }
+
+    // 남은 byte를 buffer에 이어서 쓴다. 다 썼으면 true
+    public boolean drainTo(ByteBuffer buffer) {
+        int length = Math.min(buffer.remaining(), overflowEnd - overflowStart);
+        buffer.put(overflow, overflowStart, length);
+        overflowStart += length;
+        if (overflowStart == overflowEnd) {
+            overflowStart = 0;
+            overflowEnd = 0;
+            return true;
+        }
+        return false;
+    }
+
+    // 앞에 남은 byte가 없고 buffer에 공간이 있으면 buffer에, 아니면 overflow에 쓴다.
+    void write(ByteBuffer buffer, byte[] bytes) {
+        int length = 0;
+        if (overflowEnd == overflowStart) {
+            length = Math.min(buffer.remaining(), bytes.length);
+            buffer.put(bytes, 0, length);
+        }
+        if (length < bytes.length) {
+            ensureOverflowCapacity(bytes.length - length);
+            System.arraycopy(bytes, length, overflow, overflowEnd, bytes.length - length);
+            overflowEnd += bytes.length - length;
+        }
+    }
+
+    // text의 [start, end) 구간을 UTF-8로 인코딩해서 쓴다. 짝이 맞지 않는 surrogate는 String.getBytes()와 같이 '?'로 쓴다.
+    void write(ByteBuffer buffer, CharSequence text, int start, int end) {
+        for (int i = start; i < end; ++i) {
+            char ch = text.charAt(i);
+            if (ch < 0x80) {
+                write(buffer, (byte) ch);
+            } else if (ch < 0x800) {
+                write(buffer, (byte) (0xc0 | (ch >> 6)));
+                write(buffer, (byte) (0x80 | (ch & 0x3f)));
+            } else if (!Character.isSurrogate(ch)) {
+                write(buffer, (byte) (0xe0 | (ch >> 12)));
+                write(buffer, (byte) (0x80 | ((ch >> 6) & 0x3f)));
+                write(buffer, (byte) (0x80 | (ch & 0x3f)));
+            } else if (Character.isHighSurrogate(ch) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(ch, text.charAt(++i));
+                write(buffer, (byte) (0xf0 | (codePoint >> 18)));
+                write(buffer, (byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+                write(buffer, (byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+                write(buffer, (byte) (0x80 | (codePoint & 0x3f)));
+            } else {
+                write(buffer, (byte) '?');
+            }
+        }
+    }
+
+    private void write(ByteBuffer buffer, byte b) {
+        if (overflowEnd == overflowStart && buffer.hasRemaining()) {
+            buffer.put(b);
+        } else {
+            ensureOverflowCapacity(1);
+            overflow[overflowEnd++] = b;
+        }
+    }
+
+    private void ensureOverflowCapacity(int length) {
+        if (overflowEnd + length > overflow.length) {
+            byte[] newOverflow = new byte[Math.max(overflow.length * 2, overflowEnd + length + 64)];
+            System.arraycopy(overflow, 0, newOverflow, 0, overflowEnd);
+            overflow = newOverflow;
+        }
+    }
+
+    // 최대 maxSize개의 context를 보관한다. 비어 있으면 새로 만들고, 가득 차면 반환된 context는 버린다.
+    // lock과 노드 할당 없이 고정 크기 배열의 slot을 CAS로 주고 받는다.
+    // ex) JosaRenderContext context = pool.acquire();
+    //     try {
+    //         template.formatTo(context, sb, args);
+    //     } finally {
+    //         pool.release(context);
+    //     }
+    public static final class Pool {
+        private final AtomicReferenceArray<JosaRenderContext> contexts;
+        private final int capacity;
+
+        public Pool(int maxSize) {
+            this(maxSize, DEFAULT_CAPACITY);
+        }
+
+        public Pool(int maxSize, int capacity) {
+            this.contexts = new AtomicReferenceArray<>(maxSize);
+            this.capacity = capacity;
+        }
+
+        public JosaRenderContext acquire() {
+            for (int i = 0; i < contexts.length(); ++i) {
+                JosaRenderContext context = contexts.get(i);
+                if (context != null && contexts.compareAndSet(i, context, null)) {
+                    return context;
+                }
+            }
+
+            return new JosaRenderContext(capacity);
+        }
+
+        public void release(JosaRenderContext context) {
+            context.reset();
+            for (int i = 0; i < contexts.length(); ++i) {
+                if (contexts.get(i) == null && contexts.compareAndSet(i, null, context)) {
+                    return;
+                }
+            }
+        }
+
+        // 보관 중인 context 수
+        public int size() {
+            int size = 0;
+            for (int i = 0; i < contexts.length(); ++i) {
+                if (contexts.get(i) != null) {
+                    ++size;
+                }
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.github.b1uec0in.josaformatter;
+
+// 추가할 때 조사를 교정하는 StringBuilder.
+// 추가한 문자열이 조사로 시작하면 바로 앞에 추가한 값의 종성으로 조사를 선택한다. 전체 문자열을 다시 검사하지 않는다.
+// 조사로 시작한 문자열은 값이 아니므로 다음 문자열의 기준이 되지 않는다. 앞의 값이 공백, 문장 부호로 끝나거나 종성을 판단할 수 없으면 그대로 추가한다.
+// 조사를 찾는 규칙은 템플릿의 인자 뒤 문자열과 같다. ex) "이 파일" 처럼 지시어 '이'로 시작하는 문자열도 조사로 인식한다.
+// StringBuilder와 JosaRenderContext를 넘겨서 재사용하면 String, 정수를 추가할 때 메모리를 할당하지 않는다.
+// ex) new JosaStringBuilder().append(name).append("을 ").append(count).append("개로 변경").toString();
+public final class JosaStringBuilder implements CharSequence, Appendable {
+    private final JosaFormatter josaFormatter;
+    private final StringBuilder sb;
+
+    // 읽기 규칙을 적용할 때 사용하는 버퍼. null이면 필요할 때 할당한다.
+    private final JosaRenderContext context;
+
+    // 마지막으로 추가한 값의 위치. 없으면 start == end
+    private int valueStart;
+    private int valueEnd;
+
+    // 마지막으로 추가한 값이 JosaAware, 등록한 상수인 경우 종성 유형. 아니면 -1
+    private int valueJongSungType = -1;
+
+    public JosaStringBuilder() {
+        this(KoreanUtils.getDefaultJosaFormatter());
+    }
+
+    public JosaStringBuilder(JosaFormatter josaFormatter) {
+        this(josaFormatter, new StringBuilder(), null);
+    }
+
+    public JosaStringBuilder(JosaFormatter josaFormatter, StringBuilder sb, JosaRenderContext context) {
+        this.josaFormatter = josaFormatter;
+        this.sb = sb;
+        this.context = context;
+        valueStart = valueEnd = sb.length();
+    }
+
+    @Override
+    public JosaStringBuilder append(CharSequence csq) {
+        if (csq == null || csq instanceof JosaAware) {
+            return append((Object) csq);
+        }
+
+        return appendValue(csq, 0, csq.length(), -1);
+    }
+
+    @Override
+    public JosaStringBuilder append(CharSequence csq, int start, int end) {
+        if (csq == null) {
+            return append("null".subSequence(start, end));
+        }
+
+        return appendValue(csq, start, end, -1);
+    }
+
+    public JosaStringBuilder append(String str) {
+        return append((CharSequence) str);
+    }
+
+    // JosaAware, 등록한 enum 상수는 미리 계산한 종성 유형을 사용한다.
+    public JosaStringBuilder append(Object obj) {
+        if (obj instanceof CharSequence && !(obj instanceof JosaAware)) {
+            CharSequence csq = (CharSequence) obj;
+            return appendValue(csq, 0, csq.length(), -1);
+        }
+
+        int jongSungType = josaFormatter.getPresetJongSungType(obj);
+        String text = obj instanceof JosaAware ? ((JosaAware) obj).getJosaText() : null;
+        return appendValue(text != null ? text : String.valueOf(obj), jongSungType);
+    }
+
+    @Override
+    public JosaStringBuilder append(char c) {
+        valueStart = sb.length();
+        sb.append(c);
+        valueEnd = sb.length();
+        valueJongSungType = -1;
+        return this;
+    }
+
+    public JosaStringBuilder append(int i) {
+        valueStart = sb.length();
+        sb.append(i);
+        valueEnd = sb.length();
+        valueJongSungType = -1;
+        return this;
+    }
+
+    public JosaStringBuilder append(long l) {
+        valueStart = sb.length();
+        sb.append(l);
+        valueEnd = sb.length();
+        valueJongSungType = -1;
+        return this;
+    }
+
+    private JosaStringBuilder appendValue(CharSequence text, int jongSungType) {
+        return appendValue(text, 0, text.length(), jongSungType);
+    }
+
+    private JosaStringBuilder appendValue(CharSequence text, int start, int end, int jongSungType) {
+        if (start >= end) {
+            return this;
+        }
+
+        JosaFormatter.JosaMatch josaMatch = isJosaAnchor() ? findJosa(text, start, end) : null;
+        int previousJongSungType = -1;
+        if (josaMatch != null) {
+            previousJongSungType = valueJongSungType >= 0 ? valueJongSungType : josaFormatter.getJongSungType(sb, valueStart, valueEnd, context);
+        }
+
+        int begin = sb.length();
+        if (previousJongSungType < 0) {
+            sb.append(text, start, end);
+        } else {
+            int josaStart = start + josaMatch.index;
+            sb.append(text, start, josaStart);
+            sb.append(JosaFormatter.getJosa(josaMatch.josaPair, previousJongSungType));
+            sb.append(text, josaStart + josaMatch.josa.length(), end);
+        }
+
+        if (josaMatch != null) {
+            // 조사 뒤의 문자열은 값이 아니다.
+            valueStart = valueEnd = sb.length();
+            valueJongSungType = -1;
+        } else {
+            valueStart = begin;
+            valueEnd = sb.length();
+            valueJongSungType = jongSungType;
+        }
+        return this;
+    }
+
+    // 마지막 값 바로 뒤에 조사가 올 수 있는지 여부. 값이 공백, 문장 부호 등으로 끝나면 조사가 붙지 않는다. (닫는 괄호, 따옴표 제외)
+    // 종성 유형을 미리 지정한 값(JosaAware, 등록한 상수)은 문자와 관계 없이 조사가 붙는다.
+    private boolean isJosaAnchor() {
+        if (valueStart >= valueEnd) {
+            return false;
+        }
+        if (valueJongSungType >= 0) {
+            return true;
+        }
+
+        char lastChar = sb.charAt(valueEnd - 1);
+        return !josaFormatter.getJosaBoundaryChars().contains(lastChar) || josaFormatter.isEndSkipText(lastChar);
+    }
+
+    private JosaFormatter.JosaMatch findJosa(CharSequence text, int start, int end) {
+        if (start == 0 && end == text.length()) {
+            return josaFormatter.findJosa(text);
+        }
+
+        // 조사 뒤에 올 수 있는 문자인지 확인하기 위해 구간의 끝을 맞춘다. (드문 경우)
+        return josaFormatter.findJosa(text.subSequence(start, end));
+    }
+
+    // 앞에 추가한 값과 관계 없이 그대로 추가한다.
+    public JosaStringBuilder appendLiteral(CharSequence csq) {
+        valueStart = sb.length();
+        sb.append(csq);
+        valueEnd = sb.length();
+        valueJongSungType = -1;
+        return this;
+    }
+
+    public void setLength(int newLength) {
+        sb.setLength(newLength);
+        valueStart = valueEnd = newLength;
+        valueJongSungType = -1;
+    }
+
+    public StringBuilder getStringBuilder() {
+        return sb;
+    }
+
+    @Override
+    public int length() {
+        return sb.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return sb.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return sb.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return sb.toString();
+    }
+}
@@ -0,0 +1,535 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+// 미리 컴파일된 조사 교정 템플릿.
+// 생성 이후에는 변경되지 않으므로 여러 쓰레드에서 lock 없이 공유할 수 있다.
+// 조사 위치는 컴파일할 때의 JosaFormatter 설정(endSkipChars, josaBoundaryChars)으로 정해지므로 설정을 바꾸면 다시 컴파일해야 한다.
+public abstract class JosaTemplate {
+    protected final JosaFormatter josaFormatter;
+    protected final Locale locale;
+    protected final String pattern;
+
+    final Segment[] segments;
+    private final int literalLength;
+    private final int argumentCount;
+    private final boolean hasJosa;
+
+    // 같은 인자를 여러번 사용하는 경우(%1$s, %<s, {0}) 한번만 형식화하고 종성도 한번만 계산한다.
+    // 인자 segment마다 결과를 보관할 slot 번호. 한번만 사용하는 인자나 문자열 segment는 -1
+    private final int[] argumentSlots;
+    private final int repeatedArgumentCount;
+
+    // 반복되는 인자의 종성을 아직 계산하지 않음
+    static final int NOT_COMPUTED = -2;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // specialize() 이후 형식화에 사용. (encodeTo() 제외)
+    private volatile SpecializedRenderer specializedRenderer;
+
+    // 자동 specialize 여부를 판단하기 위한 호출 수. 여러 쓰레드에서 증가시킬 때 일부 누락될 수 있지만 기준으로 쓰기에는 충분하다.
+    private int invocationCount;
+
+    // UTF-8로 미리 인코딩한 문자열 segment. encodeTo()를 처음 호출할 때 만든다. 인자 segment는 null
+    private volatile EncodedText[] encodedTexts;
+
+    protected JosaTemplate(JosaFormatter josaFormatter, Locale locale, String pattern, List<Segment> segments) {
+        this(josaFormatter, locale, pattern, segments, true);
+    }
+
+    // locateJosa가 false이면 segment에 미리 찾아둔 조사 위치를 그대로 사용한다.
+    protected JosaTemplate(JosaFormatter josaFormatter, Locale locale, String pattern, List<Segment> segments, boolean locateJosa) {
+        this.josaFormatter = josaFormatter;
+        this.locale = locale;
+        this.pattern = pattern;
+        this.segments = new Segment[segments.size()];
+
+        int literalLength = 0;
+        int argumentCount = 0;
+        boolean hasJosa = false;
+        for (int i = 0; i < this.segments.length; ++i) {
+            Segment segment = segments.get(i);
+            if (segment.isArgument()) {
+                ++argumentCount;
+            } else {
+                literalLength += segment.text.length();
+
+                // 조사는 인자 바로 뒤의 문자열에서만 찾는다.
+                if (locateJosa && i > 0 && segments.get(i - 1).isArgument()) {
+                    segment = new Segment(segment.text, josaFormatter.findJosa(segment.text));
+                }
+                hasJosa |= segment.josaMatch != null;
+            }
+            this.segments[i] = segment;
+        }
+        this.literalLength = literalLength;
+        this.argumentCount = argumentCount;
+        this.hasJosa = hasJosa;
+
+        argumentSlots = new int[this.segments.length];
+        repeatedArgumentCount = assignArgumentSlots(this.segments, argumentSlots);
+
+        JosaMetricsListener metricsListener = josaFormatter.getMetricsListener();
+        if (locateJosa && metricsListener != null) {
+            metricsListener.onTemplateParsed(this);
+        }
+    }
+
+    // 인자 번호와 형식이 같은 인자 segment에 같은 slot을 지정한다. slot 수를 반환
+    private static int assignArgumentSlots(Segment[] segments, int[] argumentSlots) {
+        HashMap<String, Integer> firstSegments = new HashMap<>();
+        HashMap<String, Integer> slots = new HashMap<>();
+        for (int i = 0; i < segments.length; ++i) {
+            argumentSlots[i] = -1;
+            if (!segments[i].isArgument()) {
+                continue;
+            }
+
+            Argument argument = segments[i].argument;
+            String key = argument.getClass().getName() + ':' + argument.index + ':' + argument.spec;
+            Integer firstSegment = firstSegments.get(key);
+            if (firstSegment == null) {
+                firstSegments.put(key, i);
+                continue;
+            }
+
+            Integer slot = slots.get(key);
+            if (slot == null) {
+                slot = slots.size();
+                slots.put(key, slot);
+                argumentSlots[firstSegment] = slot;
+            }
+            argumentSlots[i] = slot;
+        }
+
+        return slots.size();
+    }
+
+    public JosaFormatter getJosaFormatter() {
+        return josaFormatter;
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    // 교정할 조사가 없으면 조사 교정 과정을 생략한다.
+    public boolean hasJosa() {
+        return hasJosa;
+    }
+
+    // 인자가 없는 템플릿
+    public boolean isConstant() {
+        return argumentCount == 0;
+    }
+
+    // 조사 종성 유형별 문자열을 미리 만든 전용 renderer로 형식화한다. 여러번 호출해도 한번만 만든다.
+    // JosaFormatter.setSpecializationThreshold()를 지정하면 그 횟수만큼 사용한 템플릿은 자동으로 specialize 된다.
+    public void specialize() {
+        if (specializedRenderer == null) {
+            specializedRenderer = new SpecializedRenderer(josaFormatter, segments, argumentSlots, repeatedArgumentCount);
+        }
+    }
+
+    public boolean isSpecialized() {
+        return specializedRenderer != null;
+    }
+
+    private SpecializedRenderer getSpecializedRenderer() {
+        SpecializedRenderer specializedRenderer = this.specializedRenderer;
+        if (specializedRenderer == null) {
+            int specializationThreshold = josaFormatter.getSpecializationThreshold();
+            if (specializationThreshold > 0 && ++invocationCount >= specializationThreshold) {
+                specialize();
+            }
+        }
+
+        return specializedRenderer;
+    }
+
+    public String format(Object... args) {
+        StringBuilder sb = new StringBuilder(literalLength + argumentCount * 16);
+        formatTo(sb, args);
+        return sb.toString();
+    }
+
+    public StringBuilder formatTo(StringBuilder sb, Object... args) {
+        JosaMetricsListener metricsListener = josaFormatter.getMetricsListener();
+        if (metricsListener == null) {
+            return render(sb, args);
+        }
+
+        countJosa(metricsListener);
+
+        long startTime = System.nanoTime();
+        render(sb, args);
+        metricsListener.onFormatted(this, System.nanoTime() - startTime);
+
+        return sb;
+    }
+
+    private StringBuilder render(StringBuilder sb, Object[] args) {
+        SpecializedRenderer specializedRenderer = getSpecializedRenderer();
+        if (specializedRenderer != null) {
+            return specializedRenderer.render(sb, args);
+        }
+
+        if (!hasJosa && repeatedArgumentCount == 0) {
+            for (Segment segment : segments) {
+                sb.append(segment.isArgument() ? segment.argument.format(args) : segment.text);
+            }
+            return sb;
+        }
+
+        // 반복되는 인자의 형식화 결과와 종성 유형
+        String[] repeatedTexts = null;
+        int[] repeatedJongSungTypes = null;
+        if (repeatedArgumentCount > 0) {
+            repeatedTexts = new String[repeatedArgumentCount];
+            repeatedJongSungTypes = new int[repeatedArgumentCount];
+        }
+
+        String previous = null;
+        int previousJongSungType = -1;
+        int previousSlot = -1;
+        for (int i = 0; i < segments.length; ++i) {
+            Segment segment = segments[i];
+            if (segment.isArgument()) {
+                previousSlot = argumentSlots[i];
+                if (previousSlot >= 0 && repeatedTexts[previousSlot] != null) {
+                    previous = repeatedTexts[previousSlot];
+                    previousJongSungType = repeatedJongSungTypes[previousSlot];
+                } else {
+                    previous = segment.argument.format(args);
+                    previousJongSungType = josaFormatter.getPresetJongSungType(segment.argument.getPlainArgument(args));
+                    if (previousSlot >= 0) {
+                        repeatedTexts[previousSlot] = previous;
+                        repeatedJongSungTypes[previousSlot] = previousJongSungType >= 0 ? previousJongSungType : NOT_COMPUTED;
+                        previousJongSungType = repeatedJongSungTypes[previousSlot];
+                    }
+                }
+                sb.append(previous);
+            } else {
+                if (previousJongSungType >= 0 && segment.josaMatch != null) {
+                    josaFormatter.appendJosaModifiedString(sb, segment.text, segment.josaMatch, previousJongSungType);
+                } else if (previousSlot >= 0 && segment.josaMatch != null) {
+                    // 반복되는 인자는 종성을 한번만 계산한다. 판단할 수 없는 경우(-1)도 다시 계산하지 않는다.
+                    if (previousJongSungType == NOT_COMPUTED) {
+                        previousJongSungType = previous.isEmpty() ? -1 : josaFormatter.getJongSungType(previous);
+                        repeatedJongSungTypes[previousSlot] = previousJongSungType;
+                    }
+                    josaFormatter.appendJosaModifiedString(sb, previous, 0, previous.length(), segment.text, segment.josaMatch, previousJongSungType);
+                } else {
+                    josaFormatter.appendJosaModifiedString(sb, previous, segment.text, segment.josaMatch);
+                }
+                previous = segment.text;
+                previousJongSungType = -1;
+                previousSlot = -1;
+            }
+        }
+
+        return sb;
+    }
+
+    // context의 버퍼를 사용한다. 결과 문자열 외에는 메모리를 할당하지 않는다.
+    public String format(JosaRenderContext context, Object... args) {
+        StringBuilder sb = context.output;
+        sb.setLength(0);
+        formatTo(context, sb, args);
+        return sb.toString();
+    }
+
+    // 인자를 sb에 바로 추가하고, 추가된 구간에서 종성을 검사한다.
+    // String, CharSequence, 정수 인자는 중간 문자열을 만들지 않으므로 sb의 용량이 충분하면 메모리를 할당하지 않는다.
+    public StringBuilder formatTo(JosaRenderContext context, StringBuilder sb, Object... args) {
+        JosaMetricsListener metricsListener = josaFormatter.getMetricsListener();
+        if (metricsListener == null) {
+            return render(context, sb, args);
+        }
+
+        countJosa(metricsListener);
+
+        long startTime = System.nanoTime();
+        render(context, sb, args);
+        metricsListener.onFormatted(this, System.nanoTime() - startTime);
+
+        return sb;
+    }
+
+    private StringBuilder render(JosaRenderContext context, StringBuilder sb, Object[] args) {
+        SpecializedRenderer specializedRenderer = getSpecializedRenderer();
+        if (specializedRenderer != null) {
+            return specializedRenderer.render(context, sb, args);
+        }
+
+        // 반복되는 인자는 처음 형식화한 sb의 구간을 복사한다. slot마다 [start, end, 종성 유형]
+        int[] repeatedArguments = repeatedArgumentCount > 0 ? context.getRepeatedArguments(repeatedArgumentCount) : null;
+
+        int previousStart = 0;
+        int previousEnd = 0;
+        int previousJongSungType = -1;
+        int previousSlot = -1;
+        for (int i = 0; i < segments.length; ++i) {
+            Segment segment = segments[i];
+            if (segment.isArgument()) {
+                previousSlot = argumentSlots[i];
+                previousStart = sb.length();
+                if (previousSlot >= 0 && repeatedArguments[previousSlot * 3] >= 0) {
+                    sb.append(sb, repeatedArguments[previousSlot * 3], repeatedArguments[previousSlot * 3 + 1]);
+                    previousEnd = sb.length();
+                    previousJongSungType = repeatedArguments[previousSlot * 3 + 2];
+                } else {
+                    segment.argument.formatTo(sb, args, context);
+                    previousEnd = sb.length();
+                    previousJongSungType = josaFormatter.getPresetJongSungType(segment.argument.getPlainArgument(args));
+                    if (previousSlot >= 0) {
+                        repeatedArguments[previousSlot * 3] = previousStart;
+                        repeatedArguments[previousSlot * 3 + 1] = previousEnd;
+                        repeatedArguments[previousSlot * 3 + 2] = previousJongSungType >= 0 ? previousJongSungType : NOT_COMPUTED;
+                        previousJongSungType = repeatedArguments[previousSlot * 3 + 2];
+                    }
+                }
+                continue;
+            }
+
+            if (previousJongSungType >= 0 && segment.josaMatch != null) {
+                josaFormatter.appendJosaModifiedString(sb, segment.text, segment.josaMatch, previousJongSungType);
+            } else if (previousSlot >= 0 && segment.josaMatch != null) {
+                // 반복되는 인자는 종성을 한번만 계산한다. 판단할 수 없는 경우(-1)도 다시 계산하지 않는다.
+                if (previousJongSungType == NOT_COMPUTED) {
+                    previousJongSungType = previousStart < previousEnd ? josaFormatter.getJongSungType(sb, previousStart, previousEnd, context) : -1;
+                    repeatedArguments[previousSlot * 3 + 2] = previousJongSungType;
+                }
+                josaFormatter.appendJosaModifiedString(sb, sb, previousStart, previousEnd, segment.text, segment.josaMatch, previousJongSungType);
+            } else if (segment.josaMatch != null) {
+                josaFormatter.appendJosaModifiedString(sb, previousStart, previousEnd, segment.text, segment.josaMatch, context);
+            } else {
+                sb.append(segment.text);
+            }
+        }
+
+        return sb;
+    }
+
+    // UTF-8로 buffer에 바로 쓴다. 문자열 segment는 미리 인코딩해둔 byte를 복사한다.
+    // buffer가 가득 차면 나머지는 context에 보관하고 false를 반환한다. 이어서 context.drainTo()로 다음 buffer에 쓴다.
+    // context에 이전 메시지의 남은 byte가 있으면 먼저 쓰고 그 뒤에 이어서 쓴다.
+    // ex) if (!template.encodeTo(context, buffer, args)) {
+    //         do {
+    //             flush(buffer);
+    //         } while (!context.drainTo(buffer));
+    //     }
+    public boolean encodeTo(JosaRenderContext context, ByteBuffer buffer, Object... args) {
+        JosaMetricsListener metricsListener = josaFormatter.getMetricsListener();
+        if (metricsListener == null) {
+            return encode(context, buffer, args);
+        }
+
+        countJosa(metricsListener);
+
+        long startTime = System.nanoTime();
+        boolean completed = encode(context, buffer, args);
+        metricsListener.onFormatted(this, System.nanoTime() - startTime);
+
+        return completed;
+    }
+
+    private boolean encode(JosaRenderContext context, ByteBuffer buffer, Object[] args) {
+        context.drainTo(buffer);
+
+        EncodedText[] encodedTexts = getEncodedTexts();
+        StringBuilder argumentText = context.argumentText;
+
+        // 반복되는 인자는 repeatedArgumentText에 보관한다. slot마다 [start, end, 종성 유형]
+        StringBuilder repeatedArgumentText = context.repeatedArgumentText;
+        repeatedArgumentText.setLength(0);
+        int[] repeatedArguments = repeatedArgumentCount > 0 ? context.getRepeatedArguments(repeatedArgumentCount) : null;
+
+        CharSequence previous = null;
+        int previousStart = 0;
+        int previousEnd = 0;
+        int previousJongSungType = -1;
+        int previousSlot = -1;
+        for (int i = 0; i < segments.length; ++i) {
+            Segment segment = segments[i];
+            if (segment.isArgument()) {
+                previousSlot = argumentSlots[i];
+                if (previousSlot >= 0 && repeatedArguments[previousSlot * 3] >= 0) {
+                    previous = repeatedArgumentText;
+                    previousStart = repeatedArguments[previousSlot * 3];
+                    previousEnd = repeatedArguments[previousSlot * 3 + 1];
+                    previousJongSungType = repeatedArguments[previousSlot * 3 + 2];
+                } else {
+                    argumentText.setLength(0);
+                    segment.argument.formatTo(argumentText, args, context);
+                    previous = argumentText;
+                    previousStart = 0;
+                    previousEnd = argumentText.length();
+                    previousJongSungType = josaFormatter.getPresetJongSungType(segment.argument.getPlainArgument(args));
+                    if (previousSlot >= 0) {
+                        repeatedArguments[previousSlot * 3] = repeatedArgumentText.length();
+                        repeatedArgumentText.append(argumentText);
+                        repeatedArguments[previousSlot * 3 + 1] = repeatedArgumentText.length();
+                        repeatedArguments[previousSlot * 3 + 2] = previousJongSungType >= 0 ? previousJongSungType : NOT_COMPUTED;
+                        previousJongSungType = repeatedArguments[previousSlot * 3 + 2];
+                    }
+                }
+                context.write(buffer, previous, previousStart, previousEnd);
+                continue;
+            }
+
+            EncodedText encodedText = encodedTexts[i];
+            if (segment.josaMatch == null || (previousStart >= previousEnd && previousJongSungType < 0)) {
+                context.write(buffer, encodedText.text);
+                continue;
+            }
+
+            // 반복되는 인자는 종성을 한번만 계산한다. 판단할 수 없는 경우(-1)도 다시 계산하지 않는다.
+            int jongSungType = previousJongSungType;
+            if (jongSungType == NOT_COMPUTED || (jongSungType < 0 && previousSlot < 0)) {
+                jongSungType = josaFormatter.getJongSungType(previous, previousStart, previousEnd, context);
+                if (previousSlot >= 0) {
+                    repeatedArguments[previousSlot * 3 + 2] = jongSungType;
+                }
+            }
+
+            Pair<String, String> josaPair = segment.josaMatch.josaPair;
+            context.write(buffer, encodedText.prefix);
+            if (jongSungType >= 0) {
+                context.write(buffer, JosaFormatter.isFirstJosa(josaPair, jongSungType) ? encodedText.first : encodedText.second);
+            } else {
+                JosaMetricsListener metricsListener = josaFormatter.getMetricsListener();
+                if (metricsListener != null) {
+                    metricsListener.onFallback(previous.subSequence(previousStart, previousEnd).toString());
+                }
+                context.write(buffer, encodedText.unknown);
+            }
+            context.write(buffer, encodedText.suffix);
+        }
+
+        return !context.hasRemaining();
+    }
+
+    private EncodedText[] getEncodedTexts() {
+        EncodedText[] encodedTexts = this.encodedTexts;
+        if (encodedTexts == null) {
+            encodedTexts = new EncodedText[segments.length];
+            for (int i = 0; i < segments.length; ++i) {
+                if (!segments[i].isArgument()) {
+                    encodedTexts[i] = new EncodedText(segments[i]);
+                }
+            }
+            this.encodedTexts = encodedTexts;
+        }
+
+        return encodedTexts;
+    }
+
+    // 인자 뒤의 문자열마다 조사 유무를 기록
+    private void countJosa(JosaMetricsListener metricsListener) {
+        for (int i = 1; i < segments.length; ++i) {
+            Segment segment = segments[i];
+            if (!segment.isArgument() && segments[i - 1].isArgument()) {
+                if (segment.josaMatch != null) {
+                    metricsListener.onJosaFound(segment.josaMatch);
+                } else {
+                    metricsListener.onJosaNotFound();
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+    static final class Segment {
+        // 문자열 segment
+        final String text;
+        final JosaFormatter.JosaMatch josaMatch;
+
+        // 인자 segment
+        final Argument argument;
+
+        Segment(String text) {
+            this(text, null);
+        }
+
+        Segment(String text, JosaFormatter.JosaMatch josaMatch) {
+            this.text = text;
+            this.josaMatch = josaMatch;
+            this.argument = null;
+        }
+
+        Segment(Argument argument) {
+            this.text = null;
+            this.josaMatch = null;
+            this.argument = argument;
+        }
+
+        boolean isArgument() {
+            return argument != null;
+        }
+    }
+
+    static final class EncodedText {
+        final byte[] text;
+
+        // 조사가 있는 경우 조사 앞, 조사 종류별, 조사 뒤
+        final byte[] prefix;
+        final byte[] first;
+        final byte[] second;
+        final byte[] unknown;
+        final byte[] suffix;
+
+        EncodedText(Segment segment) {
+            text = segment.text.getBytes(UTF_8);
+
+            JosaFormatter.JosaMatch josaMatch = segment.josaMatch;
+            if (josaMatch != null) {
+                prefix = segment.text.substring(0, josaMatch.index).getBytes(UTF_8);
+                first = josaMatch.josaPair.first.getBytes(UTF_8);
+                second = josaMatch.josaPair.second.getBytes(UTF_8);
+                unknown = (josaMatch.josaPair.first + "(" + josaMatch.josaPair.second + ")").getBytes(UTF_8);
+                suffix = segment.text.substring(josaMatch.index + josaMatch.josa.length()).getBytes(UTF_8);
+            } else {
+                prefix = first = second = unknown = suffix = null;
+            }
+        }
+    }
+
+    abstract static class Argument {
+        final int index;
+
+        // 인자 번호를 제외한 형식 문자열. 컴파일된 템플릿을 저장하고 다시 읽을 때 사용.
+        final String spec;
+
+        Argument(int index, String spec) {
+            this.index = index;
+            this.spec = spec;
+        }
+
+        abstract String format(Object[] args);
+
+        // 인자를 변환 없이 문자열 그대로 형식화하는 경우 인자. 아니면 null
+        // JosaAware, 등록한 enum 상수의 종성 유형을 사용할 수 있는지 확인할 때 사용한다.
+        Object getPlainArgument(Object[] args) {
+            return null;
+        }
+
+        // 결과를 sb에 바로 추가한다. 문자열을 만들지 않고 추가할 수 있는 타입은 하위 클래스에서 처리한다.
+        void formatTo(StringBuilder sb, Object[] args, JosaRenderContext context) {
+            sb.append(format(args));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.util.List;
+
+// 문자열과 미리 계산한 종성 유형
+// ex) josaFormatter.format("%s을 선택했습니다.", JosaText.of(josaFormatter, "아이폰3"));
+public final class JosaText implements JosaAware, CharSequence {
+    private final String text;
+    private final int jongSungType;
+
+    public JosaText(String text, int jongSungType) {
+        if (text == null) {
+            throw new NullPointerException("text");
+        }
+        if (jongSungType < -1 || jongSungType > 2) {
+            throw new IllegalArgumentException("invalid jongSungType: " + jongSungType);
+        }
+        this.text = text;
+        this.jongSungType = jongSungType;
+    }
+
+    public static JosaText of(JosaFormatter josaFormatter, String text) {
+        return new JosaText(text, josaFormatter.getJongSungType(text));
+    }
+
+    // 여러 문자열의 종성 유형을 한번에 계산한다. 결과를 DB 컬럼 등에 저장해 두고 JosaAware.getJongSungType()에서 반환한다.
+    // 판단할 수 없는 경우는 -1
+    public static byte[] getJongSungTypes(JosaFormatter josaFormatter, List<? extends CharSequence> texts) {
+        byte[] jongSungTypes = new byte[texts.size()];
+        josaFormatter.classifyAll(texts.toArray(new CharSequence[texts.size()]), jongSungTypes);
+
+        return jongSungTypes;
+    }
+
+    @Override
+    public int getJongSungType() {
+        return jongSungType;
+    }
+
+    @Override
+    public String getJosaText() {
+        return text;
+    }
+
+    @Override
+    public int length() {
+        return text.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return text.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return text.subSequence(start, end);
+    }
+
+    @Override
+    public int hashCode() {
+        return text.hashCode() * 31 + jongSungType;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (object instanceof JosaText) {
+            JosaText josaText = (JosaText) object;
+            return text.equals(josaText.text) && jongSungType == josaText.jongSungType;
+        }
+
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -2,6 +2,8 @@ package com.github.b1uec0in.josaformatter;
 
 import java.util.Locale;
 
+import javax.management.JMException;
+
 /**
  * Created by yjbae@sk.com on 2017/05/23.
  */
@@ -31,4 +33,27 @@ public class KoreanUtils {
     public static String format(Locale l, String format, Object... args) {
         return getDefaultJosaFormatter().format(l, format, args);
     }
+
+    // java.text.MessageFormat 문법 지원. ex) KoreanUtils.formatMessage("{0}을 {1}로 변경할까요?", "아이폰", "Galaxy");
+    public static String formatMessage(String pattern, Object... args) {
+        return getDefaultJosaFormatter().formatMessage(pattern, args);
+    }
+
+    public static String formatMessage(Locale l, String pattern, Object... args) {
+        return getDefaultJosaFormatter().formatMessage(l, pattern, args);
+    }
+
+    // 처음 사용할 때 형식화하는 메시지. 출력되지 않을 수 있는 로그 메시지에 사용한다.
+    public static JosaMessage lazyFormat(String format, Object... args) {
+        return JosaMessage.format(getDefaultJosaFormatter(), Locale.getDefault(), format, args);
+    }
+
+    public static JosaMessage lazyFormatMessage(String pattern, Object... args) {
+        return JosaMessage.formatMessage(getDefaultJosaFormatter(), Locale.getDefault(Locale.Category.FORMAT), pattern, args);
+    }
+
+    // 기본 JosaFormatter를 JMX에 등록한다. (name=default)
+    public static JosaFormatterMonitor registerMBean() throws JMException {
+        return JosaFormatterMonitor.register("default", getDefaultJosaFormatter());
+    }
 }
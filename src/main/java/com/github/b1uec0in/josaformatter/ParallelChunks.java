@@ -0,0 +1,58 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// [0, size) 구간을 쓰레드 수만큼 나누어 고정 크기 쓰레드 풀에서 처리한다.
+// 작업에서 발생한 RuntimeException은 그대로, 그 외 예외는 IllegalStateException으로 감싸서 던진다.
+class ParallelChunks {
+    interface Task {
+        void run(int begin, int end);
+    }
+
+    private ParallelChunks() {
+    }
+
+    // threadCount가 1 이하이면 호출한 쓰레드에서 바로 처리한다.
+    static void run(int size, int threadCount, final Task task) {
+        if (threadCount <= 1) {
+            task.run(0, size);
+            return;
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            int chunkSize = (size + threadCount - 1) / threadCount;
+            for (int begin = 0; begin < size; begin += chunkSize) {
+                final int chunkBegin = begin;
+                final int chunkEnd = Math.min(begin + chunkSize, size);
+                futures.add(executorService.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        task.run(chunkBegin, chunkEnd);
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.github.b1uec0in.josaformatter;
+
+// 자주 사용하는 템플릿 전용으로 미리 펼쳐둔 renderer. (JosaTemplate.specialize())
+// 인자 뒤의 문자열은 종성 유형마다 조사를 바꾼 문자열을 미리 만들어 두고, 형식화할 때는 종성 유형으로 하나를 골라서 추가한다.
+// 문자열/인자 segment 구분, 조사 위치로 문자열을 나누는 작업, 조사 선택(isFirstJosa)을 매번 하지 않는다.
+// 조사 선택 결과는 josaPair에만 의존하므로 읽기 규칙이나 JongSungDetector를 변경해도 다시 만들 필요가 없다.
+final class SpecializedRenderer {
+    // 종성을 판단할 수 없을 때 사용하는 문자열 위치. ex) "을(를)"
+    private static final int UNKNOWN = 3;
+
+    // 인자가 빈 문자열이면 교정하지 않은 원래 문자열을 사용한다.
+    private static final int ORIGINAL = 4;
+
+    // JongSungDetector가 2보다 큰 값을 반환하면 isFirstJosa()와 같이 'ㄹ' 종성으로 처리한다. (종성 있음, '으로'는 종성 없음)
+    private static final int MAX_JONGSUNG_TYPE = 2;
+
+    private final JosaFormatter josaFormatter;
+
+    // 첫 인자 앞의 문자열
+    private final String head;
+
+    // 인자와 인자 뒤의 문자열. 인자 수만큼
+    private final JosaTemplate.Argument[] arguments;
+    private final int[] argumentSlots;
+    private final int repeatedArgumentCount;
+
+    // 인자 뒤의 문자열. 조사가 있으면 [종성 없음, 종성 있음, 'ㄹ' 종성, 판단 불가, 원래 문자열] 5개, 없으면 1개
+    private final String[][] tails;
+
+    SpecializedRenderer(JosaFormatter josaFormatter, JosaTemplate.Segment[] segments, int[] segmentSlots, int repeatedArgumentCount) {
+        this.josaFormatter = josaFormatter;
+        this.repeatedArgumentCount = repeatedArgumentCount;
+
+        int argumentCount = 0;
+        for (JosaTemplate.Segment segment : segments) {
+            if (segment.isArgument()) {
+                ++argumentCount;
+            }
+        }
+
+        arguments = new JosaTemplate.Argument[argumentCount];
+        argumentSlots = new int[argumentCount];
+        tails = new String[argumentCount][];
+
+        StringBuilder head = new StringBuilder();
+        int argumentIndex = -1;
+        for (int i = 0; i < segments.length; ++i) {
+            JosaTemplate.Segment segment = segments[i];
+            if (segment.isArgument()) {
+                ++argumentIndex;
+                arguments[argumentIndex] = segment.argument;
+                argumentSlots[argumentIndex] = segmentSlots[i];
+                tails[argumentIndex] = new String[]{""};
+            } else if (argumentIndex < 0) {
+                head.append(segment.text);
+            } else if (segment.josaMatch != null && tails[argumentIndex][0].isEmpty()) {
+                tails[argumentIndex] = getJosaVariants(segment.text, segment.josaMatch);
+            } else {
+                // 조사는 인자 바로 뒤의 문자열에만 있으므로 이어지는 문자열은 모든 경우에 그대로 붙인다.
+                String[] tail = tails[argumentIndex];
+                for (int j = 0; j < tail.length; ++j) {
+                    tail[j] = tail[j] + segment.text;
+                }
+            }
+        }
+        this.head = head.toString();
+    }
+
+    private static String[] getJosaVariants(String text, JosaFormatter.JosaMatch josaMatch) {
+        Pair<String, String> josaPair = josaMatch.josaPair;
+        String prefix = text.substring(0, josaMatch.index);
+        String suffix = text.substring(josaMatch.index + josaMatch.josa.length());
+
+        String[] variants = new String[ORIGINAL + 1];
+        for (int jongSungType = 0; jongSungType < UNKNOWN; ++jongSungType) {
+            variants[jongSungType] = prefix + JosaFormatter.getJosa(josaPair, jongSungType) + suffix;
+        }
+        variants[UNKNOWN] = prefix + josaPair.first + '(' + josaPair.second + ')' + suffix;
+        variants[ORIGINAL] = text;
+
+        return variants;
+    }
+
+    StringBuilder render(StringBuilder sb, Object[] args) {
+        String[] repeatedTexts = null;
+        int[] repeatedJongSungTypes = null;
+        if (repeatedArgumentCount > 0) {
+            repeatedTexts = new String[repeatedArgumentCount];
+            repeatedJongSungTypes = new int[repeatedArgumentCount];
+        }
+
+        sb.append(head);
+        for (int i = 0; i < arguments.length; ++i) {
+            JosaTemplate.Argument argument = arguments[i];
+            String[] tail = tails[i];
+            int slot = argumentSlots[i];
+
+            String text;
+            int jongSungType;
+            if (slot >= 0 && repeatedTexts[slot] != null) {
+                text = repeatedTexts[slot];
+                jongSungType = repeatedJongSungTypes[slot];
+            } else {
+                text = argument.format(args);
+                jongSungType = josaFormatter.getPresetJongSungType(argument.getPlainArgument(args));
+                if (slot >= 0) {
+                    repeatedTexts[slot] = text;
+                    repeatedJongSungTypes[slot] = jongSungType >= 0 ? jongSungType : JosaTemplate.NOT_COMPUTED;
+                    jongSungType = repeatedJongSungTypes[slot];
+                }
+            }
+            sb.append(text);
+
+            if (tail.length == 1) {
+                sb.append(tail[0]);
+                continue;
+            }
+
+            if (jongSungType >= 0) {
+                sb.append(tail[Math.min(jongSungType, MAX_JONGSUNG_TYPE)]);
+            } else if (text.isEmpty()) {
+                sb.append(tail[ORIGINAL]);
+            } else {
+                if (jongSungType == JosaTemplate.NOT_COMPUTED || slot < 0) {
+                    jongSungType = josaFormatter.getJongSungType(text);
+                    if (slot >= 0) {
+                        repeatedJongSungTypes[slot] = jongSungType;
+                    }
+                }
+                sb.append(jongSungType >= 0 ? tail[Math.min(jongSungType, MAX_JONGSUNG_TYPE)] : getUnknownTail(tail, text, 0, text.length()));
+            }
+        }
+
+        return sb;
+    }
+
+    StringBuilder render(JosaRenderContext context, StringBuilder sb, Object[] args) {
+        int[] repeatedArguments = repeatedArgumentCount > 0 ? context.getRepeatedArguments(repeatedArgumentCount) : null;
+
+        sb.append(head);
+        for (int i = 0; i < arguments.length; ++i) {
+            JosaTemplate.Argument argument = arguments[i];
+            String[] tail = tails[i];
+            int slot = argumentSlots[i];
+
+            int start = sb.length();
+            int jongSungType;
+            if (slot >= 0 && repeatedArguments[slot * 3] >= 0) {
+                sb.append(sb, repeatedArguments[slot * 3], repeatedArguments[slot * 3 + 1]);
+                jongSungType = repeatedArguments[slot * 3 + 2];
+            } else {
+                argument.formatTo(sb, args, context);
+                jongSungType = josaFormatter.getPresetJongSungType(argument.getPlainArgument(args));
+                if (slot >= 0) {
+                    repeatedArguments[slot * 3] = start;
+                    repeatedArguments[slot * 3 + 1] = sb.length();
+                    repeatedArguments[slot * 3 + 2] = jongSungType >= 0 ? jongSungType : JosaTemplate.NOT_COMPUTED;
+                    jongSungType = repeatedArguments[slot * 3 + 2];
+                }
+            }
+            int end = sb.length();
+
+            if (tail.length == 1) {
+                sb.append(tail[0]);
+                continue;
+            }
+
+            if (jongSungType >= 0) {
+                sb.append(tail[Math.min(jongSungType, MAX_JONGSUNG_TYPE)]);
+            } else if (start >= end) {
+                sb.append(tail[ORIGINAL]);
+            } else {
+                if (jongSungType == JosaTemplate.NOT_COMPUTED || slot < 0) {
+                    jongSungType = josaFormatter.getJongSungType(sb, start, end, context);
+                    if (slot >= 0) {
+                        repeatedArguments[slot * 3 + 2] = jongSungType;
+                    }
+                }
+                sb.append(jongSungType >= 0 ? tail[Math.min(jongSungType, MAX_JONGSUNG_TYPE)] : getUnknownTail(tail, sb, start, end));
+            }
+        }
+
+        return sb;
+    }
+
+    private String getUnknownTail(String[] tail, CharSequence previous, int previousStart, int previousEnd) {
+        JosaMetricsListener metricsListener = josaFormatter.getMetricsListener();
+        if (metricsListener != null) {
+            metricsListener.onFallback(previous.subSequence(previousStart, previousEnd).toString());
+        }
+
+        return tail[UNKNOWN];
+    }
+}
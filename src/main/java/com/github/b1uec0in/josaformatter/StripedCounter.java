@@ -0,0 +1,37 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 여러 쓰레드에서 동시에 증가시킬 때 경합을 줄이기 위해 쓰레드별로 나누어 세는 counter.
+// Java 8의 LongAdder와 같은 목적이며, Java 7에서도 사용할 수 있도록 직접 구현함.
+class StripedCounter {
+    private static final int STRIPE_COUNT = 16;
+
+    // 서로 다른 stripe가 같은 cache line을 사용하지 않도록 간격을 둔다.
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPE_COUNT * PADDING);
+
+    public void increment() {
+        add(1);
+    }
+
+    public void add(long value) {
+        int stripe = (int) Thread.currentThread().getId() & (STRIPE_COUNT - 1);
+        cells.addAndGet(stripe * PADDING, value);
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < STRIPE_COUNT; ++i) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    public void reset() {
+        for (int i = 0; i < STRIPE_COUNT; ++i) {
+            cells.set(i * PADDING, 0);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 컴파일된 템플릿 캐시. 최대 개수를 넘으면 임의의 항목을 제거한다.
+class TemplateCache {
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final ConcurrentHashMap<Key, JosaTemplate> templates = new ConcurrentHashMap<>();
+    private volatile int maxSize = DEFAULT_MAX_SIZE;
+
+    private final StripedCounter hitCounter = new StripedCounter();
+    private final StripedCounter missCounter = new StripedCounter();
+
+    public JosaTemplate get(Class<? extends JosaTemplate> type, Locale locale, String pattern) {
+        JosaTemplate template = templates.get(new Key(type, locale, pattern));
+        if (template != null) {
+            hitCounter.increment();
+        } else {
+            missCounter.increment();
+        }
+        return template;
+    }
+
+    public void put(JosaTemplate template) {
+        if (maxSize <= 0) {
+            return;
+        }
+
+        if (templates.size() >= maxSize) {
+            Iterator<Key> iterator = templates.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+
+        templates.put(new Key(template.getClass(), template.getLocale(), template.getPattern()), template);
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    public long getHitCount() {
+        return hitCounter.sum();
+    }
+
+    public long getMissCount() {
+        return missCounter.sum();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        if (templates.size() > maxSize) {
+            clear();
+        }
+    }
+
+    public void clear() {
+        templates.clear();
+    }
+
+    private static final class Key {
+        private final Class<?> type;
+        private final Locale locale;
+        private final String pattern;
+        private final int hashCode;
+
+        Key(Class<?> type, Locale locale, String pattern) {
+            this.type = type;
+            this.locale = locale;
+            this.pattern = pattern;
+            this.hashCode = (type.hashCode() * 31 + (locale != null ? locale.hashCode() : 0)) * 31 + pattern.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (object instanceof Key) {
+                Key key = (Key) object;
+                return type == key.type && (locale != null ? locale.equals(key.locale) : key.locale == null) && pattern.equals(key.pattern);
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.github.b1uec0in.josaformatter;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * format 호출 1회당 할당되는 메모리(byte)가 예산을 넘지 않는지 확인한다.
+ * 충분히 warm up 한 다음 com.sun.management.ThreadMXBean.getThreadAllocatedBytes()로 측정하며,
+ * 지원하지 않는 JVM에서는 건너뛴다.
+ */
+public class AllocationBudgetTest {
+    private static final int WARMUP_COUNT = 20000;
+    private static final int MEASURE_COUNT = 2000;
+    private static final int MEASURE_ROUNDS = 3;
+
+    private ThreadMXBean threadMXBean;
+    private Method getThreadAllocatedBytes;
+    private JosaFormatter josaFormatter;
+
+    interface Scenario {
+        void run();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        threadMXBean = ManagementFactory.getThreadMXBean();
+        try {
+            Class<?> hotSpotThreadMXBean = Class.forName("com.sun.management.ThreadMXBean");
+            Assume.assumeTrue(hotSpotThreadMXBean.isInstance(threadMXBean));
+            getThreadAllocatedBytes = hotSpotThreadMXBean.getMethod("getThreadAllocatedBytes", long.class);
+            Method isSupported = hotSpotThreadMXBean.getMethod("isThreadAllocatedMemorySupported");
+            Assume.assumeTrue((Boolean) isSupported.invoke(threadMXBean));
+        } catch (ClassNotFoundException e) {
+            Assume.assumeTrue(false);
+        }
+
+        josaFormatter = new JosaFormatter();
+    }
+
+    private long allocatedBytes() throws Exception {
+        return (Long) getThreadAllocatedBytes.invoke(threadMXBean, Thread.currentThread().getId());
+    }
+
+    // 1회 호출당 할당된 byte. 측정 오차를 줄이기 위해 여러번 측정해서 가장 작은 값을 사용한다.
+    private long measure(Scenario scenario) throws Exception {
+        for (int i = 0; i < WARMUP_COUNT; ++i) {
+            scenario.run();
+        }
+
+        long min = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURE_ROUNDS; ++round) {
+            long begin = allocatedBytes();
+            for (int i = 0; i < MEASURE_COUNT; ++i) {
+                scenario.run();
+            }
+            long end = allocatedBytes();
+            min = Math.min(min, (end - begin) / MEASURE_COUNT);
+        }
+
+        return min;
+    }
+
+    private void assertBudget(String name, long budget, Scenario scenario) throws Exception {
+        long bytes = measure(scenario);
+        System.out.println(name + ": " + bytes + " bytes (budget " + budget + ")");
+        assertTrue(name + " allocated " + bytes + " bytes per call, budget is " + budget, bytes <= budget);
+    }
+
+    private Scenario format(final String format, final Object arg) {
+        final Object[] args = {arg};
+        return new Scenario() {
+            @Override
+            public void run() {
+                josaFormatter.format(Locale.KOREAN, format, args);
+            }
+        };
+    }
+
+    @Test
+    public void hangulArgument() throws Exception {
+        assertBudget("hangul", 512, format("%s을 선택했습니다.", "홍길동"));
+    }
+
+    @Test
+    public void englishArgument() throws Exception {
+        assertBudget("english", 896, format("%s을 선택했습니다.", "Google"));
+    }
+
+    @Test
+    public void numberArgument() throws Exception {
+        assertBudget("number", 1024, format("%d을 선택했습니다.", 1234));
+    }
+
+    @Test
+    public void hanjaArgument() throws Exception {
+        assertBudget("hanja", 640, format("%s을 선택했습니다.", "大韓民國"));
+    }
+
+    @Test
+    public void cachedTemplate() throws Exception {
+        final JosaTemplate template = josaFormatter.getTemplate(Locale.KOREAN, "%s을 선택했습니다.");
+        final Object[] args = {"홍길동"};
+        assertBudget("cached template", 384, new Scenario() {
+            @Override
+            public void run() {
+                template.format(args);
+            }
+        });
+    }
+
+    // JosaRenderContext를 재사용하고 결과를 같은 StringBuilder에 쓰면 메모리를 할당하지 않아야 한다.
+    private Scenario render(String format, Object arg) {
+        final JosaTemplate template = josaFormatter.getTemplate(Locale.KOREAN, format);
+        final JosaRenderContext context = new JosaRenderContext();
+        final StringBuilder sb = new StringBuilder(256);
+        final Object[] args = {arg};
+        return new Scenario() {
+            @Override
+            public void run() {
+                sb.setLength(0);
+                template.formatTo(context, sb, args);
+            }
+        };
+    }
+
+    @Test
+    public void renderContext() throws Exception {
+        assertBudget("render hangul", 0, render("%s을 선택했습니다.", "홍길동"));
+        assertBudget("render english", 0, render("%s을 선택했습니다.", "Google"));
+        assertBudget("render number", 0, render("%d을 선택했습니다.", 1234));
+        assertBudget("render hanja", 0, render("%s을 선택했습니다.", "大韓民國"));
+        assertBudget("render reading rule", 0, render("%s를 선택했습니다.", "아이폰3"));
+        assertBudget("render repeated argument", 0, render("%s을 삭제하면 %<s의 하위 항목도 삭제됩니다.", "Google"));
+        assertBudget("render date", 0, render("%tY년 %<tm월 %<td일을 선택했습니다.", new Date(0)));
+        assertBudget("render message format", 0, new Scenario() {
+            final JosaTemplate template = josaFormatter.getMessageFormat(Locale.KOREAN, "{0}개를 {1}으로 변경했습니다.");
+            final JosaRenderContext context = new JosaRenderContext();
+            final StringBuilder sb = new StringBuilder(256);
+            final Object[] args = {12345, "Galaxy"};
+
+            @Override
+            public void run() {
+                sb.setLength(0);
+                template.formatTo(context, sb, args);
+            }
+        });
+    }
+
+    @Test
+    public void specializedRenderer() throws Exception {
+        josaFormatter.setSpecializationThreshold(1);
+        assertBudget("specialized hangul", 0, render("%s을 선택했습니다.", "홍길동"));
+        assertBudget("specialized english", 0, render("%s을 %<s으로 변경했습니다.", "Google"));
+        assertBudget("specialized number", 0, render("%d을 선택했습니다.", 1234));
+    }
+
+    @Test
+    public void jongSungIndex() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JongSungIndex.write(josaFormatter, new CharSequence[]{"홍길동", "Google", "아이폰3"}, outputStream);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(outputStream.size());
+        buffer.put(outputStream.toByteArray()).flip();
+        josaFormatter.setJongSungIndex(JongSungIndex.load(buffer));
+
+        assertBudget("index hit", 0, render("%s을 선택했습니다.", "Google"));
+        assertBudget("index miss", 0, render("%s을 선택했습니다.", "Galaxy"));
+    }
+
+    @Test
+    public void josaStringBuilder() throws Exception {
+        final JosaStringBuilder sb = new JosaStringBuilder(josaFormatter, new StringBuilder(256), new JosaRenderContext());
+        assertBudget("josa string builder", 0, new Scenario() {
+            @Override
+            public void run() {
+                sb.setLength(0);
+                sb.append("아이폰3").append("를 ").append(1234).append("개로 변경").append("Google").append("와");
+            }
+        });
+    }
+
+    @Test
+    public void encodeTo() throws Exception {
+        final JosaTemplate template = josaFormatter.getTemplate(Locale.KOREAN, "%s을 %s으로 변경했습니다. %d개");
+        final JosaRenderContext context = new JosaRenderContext();
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(256);
+        final Object[] args = {"아이폰", "Galaxy", 1234};
+        assertBudget("encode", 0, new Scenario() {
+            @Override
+            public void run() {
+                buffer.clear();
+                template.encodeTo(context, buffer, args);
+            }
+        });
+    }
+
+    @Test
+    public void josaModifiedString() throws Exception {
+        assertBudget("getJosaModifiedString", 160, new Scenario() {
+            @Override
+            public void run() {
+                josaFormatter.getJosaModifiedString("홍길동", "을 선택했습니다.");
+            }
+        });
+    }
+}
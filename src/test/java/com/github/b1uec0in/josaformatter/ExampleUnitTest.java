@@ -2,7 +2,34 @@ package com.github.b1uec0in.josaformatter;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.Properties;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import static org.junit.Assert.*;
 
@@ -176,4 +203,1015 @@ public class ExampleUnitTest {
             assertEqualsEx(str + "는", KoreanUtils.format("%s은", str));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testMessageFormat() throws Exception {
+        System.out.println("\nMessageFormat:");
+
+        assertEqualsEx("아이폰을 Galaxy로 변경할까요?", KoreanUtils.formatMessage("{0}를 {1}으로 변경할까요?", "아이폰", "Galaxy"));
+        assertEqualsEx("Galaxy로 아이폰을", JosaMessageFormat.format("{1}으로 {0}를", "아이폰", "Galaxy"));
+        assertEqualsEx("'MP3'는", KoreanUtils.formatMessage("''{0}''은", "MP3"));
+        assertEqualsEx("{0}을 {1}", KoreanUtils.formatMessage("'{0}'을 '{1}'", "삼"));
+
+        // number
+        assertEqualsEx("1,000원을 3으로", KoreanUtils.formatMessage(Locale.KOREA, "{0,number}원을 {1}로", 1000, 3));
+        assertEqualsEx("-1,234,567을", KoreanUtils.formatMessage(Locale.KOREA, "{0,number,integer}를", -1234567L));
+        assertEqualsEx("1.5를", KoreanUtils.formatMessage(Locale.KOREA, "{0,number,#.#}을", 1.5));
+
+        // choice
+        String pattern = "{0,choice,0#파일|1#파일 {0}개|1<파일 {0,number,integer}개}를 삭제";
+        assertEqualsEx("파일을 삭제", KoreanUtils.formatMessage(Locale.KOREA, pattern, 0));
+        assertEqualsEx("파일 1개를 삭제", KoreanUtils.formatMessage(Locale.KOREA, pattern, 1));
+
+        // MessageFormat과 동일한 결과
+        Object[] args = {"홍길동", 12345, 2.5, null};
+        String[] patterns = {
+                "{0}님 {1}개 {2} {3}",
+                "{1,number,#,##0.00} {2,number,integer} '{'{0}'}' {5}",
+                "{0}''s {1,choice,0#none|1#one|1<many}",
+        };
+        for (String p : patterns) {
+            assertEqualsEx(new MessageFormat(p, Locale.KOREA).format(args), KoreanUtils.formatMessage(Locale.KOREA, p, args));
+        }
+
+        try {
+            KoreanUtils.formatMessage("{0", "삼");
+            fail();
+        } catch (IllegalArgumentException ignore) {
+        }
+
+        // 캐시된 템플릿 재사용
+        JosaFormatter josaFormatter = KoreanUtils.getDefaultJosaFormatter();
+        assertSame(josaFormatter.getMessageFormat(Locale.KOREA, pattern), josaFormatter.getMessageFormat(Locale.KOREA, pattern));
+    }
+
+    @Test
+    public void testMessageCatalog() throws Exception {
+        System.out.println("\nMessageCatalog:");
+
+        Properties properties = new Properties();
+        properties.load(new StringReader("confirm.change=%s를 %s으로 변경할까요?\n" +
+                "confirm.delete=%1$s을 삭제하면 %<s의 하위 항목도 삭제됩니다.\n" +
+                "notice.count=%d개의 알림이 있습니다.\n" +
+                "notice.percent=100%% 완료\n"));
+
+        JosaFormatter josaFormatter = new JosaFormatter();
+        JosaMessageCatalog catalog = JosaMessageCatalog.load(josaFormatter, Locale.KOREA, properties, JosaMessageCatalog.Syntax.FORMAT, 4);
+
+        assertEquals(4, catalog.size());
+        assertEqualsEx("아이폰을 Galaxy로 변경할까요?", catalog.format("confirm.change", "아이폰", "Galaxy"));
+        assertEqualsEx("사진을 삭제하면 사진의 하위 항목도 삭제됩니다.", catalog.format("confirm.delete", "사진"));
+        assertEqualsEx("3개의 알림이 있습니다.", catalog.format("notice.count", 3));
+        assertEqualsEx("100% 완료", catalog.format("notice.percent"));
+
+        assertTrue(catalog.hasJosa("confirm.change"));
+        assertFalse(catalog.hasJosa("notice.count"));
+        assertTrue(catalog.getTemplate("notice.percent").isConstant());
+        assertNull(catalog.getTemplate("unknown"));
+
+        Map<String, String> messages = new HashMap<>();
+        messages.put("confirm.change", "{0}를 {1}으로 변경할까요?");
+        catalog = JosaMessageCatalog.load(josaFormatter, Locale.KOREA, messages, JosaMessageCatalog.Syntax.MESSAGE_FORMAT, 1);
+        assertEqualsEx("갤럭시를 아이폰으로 변경할까요?", catalog.format("confirm.change", "갤럭시", "아이폰"));
+
+        try {
+            catalog.format("unknown");
+            fail();
+        } catch (MissingResourceException ignore) {
+        }
+    }
+
+    @Test
+    public void testCompiledMessageCatalog() throws Exception {
+        System.out.println("\nCompiledMessageCatalog:");
+
+        Map<String, String> messages = new HashMap<>();
+        messages.put("confirm.change", "%s를 %s으로 변경할까요?");
+        messages.put("confirm.delete", "%1$s을 삭제하면 %<s의 하위 항목도 삭제됩니다.");
+        messages.put("notice.count", "%,d개의 알림이 있습니다.");
+        messages.put("notice.empty", "%s(이)가 없습니다.");
+        messages.put("confirm.select", "%s(을)를 선택하세요.");
+        messages.put("confirm.move", "%s(으)로 이동할까요?");
+
+        JosaFormatter josaFormatter = new JosaFormatter();
+        JosaMessageCatalog catalog = JosaMessageCatalog.load(josaFormatter, Locale.KOREA, messages, JosaMessageCatalog.Syntax.FORMAT, 1);
+        assertTrue(JosaCatalogCompiler.validate(josaFormatter, catalog).isEmpty());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        catalog.writeCompiled(outputStream);
+        JosaMessageCatalog loaded = JosaMessageCatalog.loadCompiled(josaFormatter, new ByteArrayInputStream(outputStream.toByteArray()));
+
+        assertEquals(catalog.size(), loaded.size());
+        assertEquals(Locale.KOREA, loaded.getLocale());
+        assertEqualsEx("아이폰을 Galaxy로 변경할까요?", loaded.format("confirm.change", "아이폰", "Galaxy"));
+        assertEqualsEx("사진을 삭제하면 사진의 하위 항목도 삭제됩니다.", loaded.format("confirm.delete", "사진"));
+        assertEqualsEx("1,000개의 알림이 있습니다.", loaded.format("notice.count", 1000));
+        assertFalse(loaded.hasJosa("notice.count"));
+
+        messages.clear();
+        messages.put("{0}{1}", "{0}를 {1}으로");
+        messages.put("percent", "{0,number,percent}.를 변경");
+        messages.put("percent.empty", "{0,number,percent}(이)가 없습니다.");
+        catalog = JosaMessageCatalog.load(josaFormatter, Locale.KOREA, messages, JosaMessageCatalog.Syntax.MESSAGE_FORMAT, 1);
+        List<String> errors = JosaCatalogCompiler.validate(josaFormatter, catalog);
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).startsWith("percent:"));
+
+        outputStream.reset();
+        catalog.writeCompiled(outputStream);
+        // 읽어도 buffer의 위치는 변경되지 않는다.
+        ByteBuffer compiled = ByteBuffer.wrap(outputStream.toByteArray());
+        loaded = JosaMessageCatalog.loadCompiled(josaFormatter, compiled);
+        assertEquals(0, compiled.position());
+        assertEqualsEx("갤럭시를 아이폰으로", loaded.format("{0}{1}", "갤럭시", "아이폰"));
+    }
+
+    @Test
+    public void testJongSungCache() throws Exception {
+        System.out.println("\nJongSungCache:");
+
+        JosaFormatter josaFormatter = new JosaFormatter();
+        JongSungCache jongSungCache = new JongSungCache(100, 1000);
+        josaFormatter.setJongSungCache(jongSungCache);
+
+        assertEqualsEx("베타3을", josaFormatter.format("%s를", "베타3"));
+        assertEqualsEx("베타3을", josaFormatter.format("%s를", "베타3"));
+        assertEquals(1, jongSungCache.getHitCount());
+
+        // 읽기 규칙이 변경되면 캐시를 비운다.
+        josaFormatter.addReadRule("베타", "beta");
+        assertEqualsEx("베타3를", josaFormatter.format("%s을", "베타3"));
+
+        // JongSungDetector 목록이 변경되면 캐시를 비운다.
+        assertEqualsEx("Office2000은", josaFormatter.format("%s는", "Office2000"));
+        ArrayList<JosaFormatter.JongSungDetector> jongSungDetectors = josaFormatter.getJongSungDetectors();
+        for (int i = 0; i < jongSungDetectors.size(); ++i) {
+            if (jongSungDetectors.get(i) instanceof JosaFormatter.EnglishNumberKorStyleJongSungDetector) {
+                jongSungDetectors.set(i, new JosaFormatter.EnglishNumberJongSungDetector());
+                break;
+            }
+        }
+        assertEqualsEx("Office2000는", josaFormatter.format("%s은", "Office2000"));
+
+        // 영어 규칙이 추가되면 캐시를 비운다.
+        assertEqualsEx("Xbox를", josaFormatter.format("%s을", "Xbox"));
+        for (JosaFormatter.JongSungDetector jongSungDetector : jongSungDetectors) {
+            if (jongSungDetector instanceof JosaFormatter.EnglishJongSungDetector) {
+                ((JosaFormatter.EnglishJongSungDetector) jongSungDetector).addCustomRule("box", 1);
+            }
+        }
+        assertEqualsEx("Xbox을", josaFormatter.format("%s를", "Xbox"));
+
+        // 개수 제한
+        for (int i = 0; i < 1000; ++i) {
+            josaFormatter.format("%s를", "상품" + i);
+        }
+        assertTrue(jongSungCache.size() <= 112);
+        assertTrue(jongSungCache.getEvictionCount() > 0);
+
+        // 크기 제한
+        jongSungCache = new JongSungCache(1000, 160);
+        josaFormatter.setJongSungCache(jongSungCache);
+        for (int i = 0; i < 100; ++i) {
+            josaFormatter.format("%s를", "상품번호" + (1000 + i));
+        }
+        assertTrue(jongSungCache.size() * 8 <= 160);
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        System.out.println("\nMetrics:");
+
+        JosaFormatter josaFormatter = new JosaFormatter();
+        JosaMetrics josaMetrics = new JosaMetrics();
+        josaFormatter.setMetricsListener(josaMetrics);
+
+        josaFormatter.format("%s를 %s으로 변경할까요?", "아이폰", "Galaxy");
+        josaFormatter.format("%s를 %s으로 변경할까요?", "갤럭시", "MP3");
+        josaFormatter.format("%s를 찾을 수 없습니다.", "???");
+        josaFormatter.format("%s개", 3);
+
+        assertEquals(3, josaMetrics.getTemplateParseCount());
+        assertEquals(5, josaMetrics.getJosaFoundCount());
+        assertEquals(1, josaMetrics.getJosaNotFoundCount());
+        assertEquals(1, josaMetrics.getFallbackCount());
+        assertEquals(Arrays.asList("???"), josaMetrics.getFallbackSamples());
+        assertEquals(4, josaMetrics.getDetectedCount());
+        assertEquals(Long.valueOf(3), josaMetrics.getDetectorCounts().get("EnglishJongSungDetector")); // 읽기 규칙: 아이폰 -> iPhone, 갤럭시 -> Galaxy
+
+        josaFormatter.getJosaModifiedString("?!", "을 찾을 수 없습니다.");
+        assertEquals(2, josaMetrics.getFallbackCount());
+
+        josaMetrics.reset();
+        assertEquals(0, josaMetrics.getFallbackCount());
+        assertTrue(josaMetrics.getFallbackSamples().isEmpty());
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        System.out.println("\nMBean:");
+
+        JosaFormatter josaFormatter = new JosaFormatter();
+        JosaFormatterMonitor monitor = JosaFormatterMonitor.register("test", josaFormatter);
+        try {
+            for (int i = 0; i < 10; ++i) {
+                josaFormatter.format("%s를 %s으로 변경할까요?", "아이폰", "Galaxy");
+            }
+            josaFormatter.format("%s를 찾을 수 없습니다.", "???");
+
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = JosaFormatterMonitor.getObjectName("test");
+            assertEquals(11L, mBeanServer.getAttribute(objectName, "FormatCount"));
+            assertEquals(2, mBeanServer.getAttribute(objectName, "TemplateCacheSize"));
+            assertEquals(0.8, (Double) mBeanServer.getAttribute(objectName, "TemplateCacheHitRatio"), 0.2);
+            assertEquals(1L, mBeanServer.getAttribute(objectName, "FallbackCount"));
+            assertEquals(3, mBeanServer.getAttribute(objectName, "ReadingRuleCount"));
+            assertTrue(monitor.getLatency99Micros() >= monitor.getLatency50Micros());
+
+            String[] hottestTemplates = (String[]) mBeanServer.invoke(objectName, "dumpHottestTemplates", new Object[]{1}, new String[]{"int"});
+            assertEqualsEx("10 %s를 %s으로 변경할까요?", hottestTemplates[0]);
+
+            mBeanServer.invoke(objectName, "clearCaches", null, null);
+            assertEquals(0, monitor.getTemplateCacheSize());
+        } finally {
+            JosaFormatterMonitor.unregister("test");
+        }
+    }
+
+    @Test
+    public void testRenderContext() throws Exception {
+        System.out.println("\nRenderContext:");
+
+        JosaFormatter josaFormatter = new JosaFormatter();
+        JosaRenderContext.Pool pool = new JosaRenderContext.Pool(2);
+        JosaRenderContext context = pool.acquire();
+
+        String[] formats = {"%s을 %s으로 변경할까요?", "%d를 선택", "(%s)는", "%2$s와 %1$s"};
+        Object[][] argsList = {
+                {"아이폰3", "Galaxy"}, {"MP3", "갤럭시S8"}, {"大韓民國", "Office2000"}, {new StringBuilder("홍길동"), "???"},
+                {1000000000000L, "1,002"}, {"", "사과"}, {"'Google'", "iOS8.3"}
+        };
+        StringBuilder sb = new StringBuilder();
+        for (String format : formats) {
+            JosaFormatTemplate template = josaFormatter.getTemplate(Locale.KOREAN, format);
+            for (Object[] args : argsList) {
+                if (format.startsWith("%d") && !(args[0] instanceof Number)) {
+                    continue;
+                }
+                String expected = josaFormatter.format(Locale.KOREAN, format, args);
+                sb.setLength(0);
+                assertEqualsEx(expected, template.formatTo(context, sb, args).toString());
+                assertEquals(expected, template.format(context, args));
+            }
+        }
+
+        JosaMessageFormat messageFormat = josaFormatter.getMessageFormat(Locale.KOREAN, "{0}를 {1,number}으로 {2}");
+        Object[] args = {"갤럭시", -1234567L, Long.MIN_VALUE};
+        assertEqualsEx(messageFormat.format(args), messageFormat.format(context, args));
+
+        pool.release(context);
+        assertEquals(1, pool.size());
+        assertSame(context, pool.acquire());
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void testCharSequence() throws Exception {
+        System.out.println("\nCharSequence:");
+
+        JosaFormatter josaFormatter = new JosaFormatter();
+
+        // 큰 버퍼의 일부 구간을 복사하지 않고 검사
+        StringBuilder buffer = new StringBuilder("[로그] 사용자 'Google', 아이폰3");
+        int nameStart = buffer.indexOf("'");
+        int nameEnd = buffer.indexOf(",");
+        assertEquals(2, josaFormatter.getJongSungType(buffer, nameStart, nameEnd));
+        assertEqualsEx("'Google'을", buffer.substring(nameStart, nameEnd) + josaFormatter.getJosaModifiedString(buffer, nameStart, nameEnd, "를"));
+        assertEqualsEx("Google", josaFormatter.getReadText(buffer, nameStart + 1, nameEnd).toString());
+
+        // 읽기 규칙: 아이폰3 -> iPhone3
+        CharBuffer charBuffer = CharBuffer.wrap(buffer);
+        assertEqualsEx("iPhone3", josaFormatter.getReadText(charBuffer, nameEnd + 2, charBuffer.length()).toString());
+        assertEquals(0, josaFormatter.getJongSungType(charBuffer, nameEnd + 2, charBuffer.length()));
+
+        // String 기반 detector는 adapter로 동작한다.
+        JosaFormatter.JongSungDetector stringDetector = new JosaFormatter.JongSungDetector() {
+            @Override
+            public boolean canHandle(String str) {
+                return str.endsWith("#");
+            }
+
+            @Override
+            public int getJongSungType(String str) {
+                return 1;
+            }
+        };
+        josaFormatter.getJongSungDetectors().add(0, stringDetector);
+        buffer.append(" C#");
+        assertEquals(1, josaFormatter.getJongSungType(buffer, buffer.length() - 2, buffer.length()));
+        JosaFormatter.TextJongSungDetector adapter = JosaFormatter.TextJongSungDetector.of(stringDetector);
+        assertTrue(adapter.canHandle(buffer, buffer.length() - 2, buffer.length()));
+        assertSame(josaFormatter.getJongSungDetectors().get(1), JosaFormatter.TextJongSungDetector.of(josaFormatter.getJongSungDetectors().get(1)));
+    }
+
+    @Test
+    public void testEncodeTo() throws Exception {
+        System.out.println("\nEncodeTo:");
+
+        JosaFormatter josaFormatter = new JosaFormatter();
+        JosaFormatTemplate template = josaFormatter.getTemplate(Locale.KOREAN, "%s을 %s으로 변경할까요? 😀 %d개");
+        Object[] args = {"아이폰", "Galaxy 😀", 3};
+        byte[] expected = template.format(args).getBytes("UTF-8");
+
+        JosaRenderContext context = new JosaRenderContext();
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        assertTrue(template.encodeTo(context, buffer, args));
+        assertArrayEquals(expected, Arrays.copyOf(buffer.array(), buffer.position()));
+
+        // buffer가 가득 차면 남은 byte를 이어서 쓴다.
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        buffer = ByteBuffer.allocateDirect(7);
+        boolean completed = template.encodeTo(context, buffer, args);
+        assertFalse(completed);
+        while (true) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                outputStream.write(buffer.get());
+            }
+            buffer.clear();
+            if (completed) {
+                break;
+            }
+            completed = context.drainTo(buffer);
+        }
+        assertArrayEquals(expected, outputStream.toByteArray());
+
+        // 조사를 판단할 수 없는 경우
+        buffer = ByteBuffer.allocate(256);
+        template.encodeTo(context, buffer, "???", "", 1);
+        assertEqualsEx("???을(를) 으로 변경할까요? 😀 1개", new String(buffer.array(), 0, buffer.position(), "UTF-8"));
+    }
+
+    @Test
+    public void testExtendedJosa() throws Exception {
+        System.out.println("\nExtendedJosa:");
+
+        assertEqualsEx("사과나 배", KoreanUtils.format("%s이나 배", "사과"));
+        assertEqualsEx("귤이나 배", KoreanUtils.format("%s나 배", "귤"));
+        assertEqualsEx("Galaxy랑 아이폰", KoreanUtils.format("%s이랑 아이폰", "Galaxy"));
+        assertEqualsEx("책이며 연필", KoreanUtils.format("%s며 연필", "책"));
+        assertEqualsEx("무엇이든 좋아요", KoreanUtils.format("%s든 좋아요", "무엇"));
+        assertEqualsEx("아이폰이라고 합니다", KoreanUtils.format("%s라고 합니다", "아이폰"));
+        assertEqualsEx("철수다", KoreanUtils.format("%s이다", "철수"));
+        assertEqualsEx("길동아 안녕", KoreanUtils.format("%s야 안녕", "길동"));
+        assertEqualsEx("철수야 안녕", KoreanUtils.format("%s아 안녕", "철수"));
+        assertEqualsEx("그대여 가지마오", KoreanUtils.format("%s이여 가지마오", "그대"));
+        assertEqualsEx("별이여", KoreanUtils.format("%s여", "별"));
+        assertEqualsEx("학생으로서 할 일", KoreanUtils.format("%s로서 할 일", "학생"));
+        assertEqualsEx("교사로서 할 일", KoreanUtils.format("%s으로서 할 일", "교사"));
+        assertEqualsEx("칼로써 자르다", KoreanUtils.format("%s으로써 자르다", "칼"));
+        assertEqualsEx("MP3로써", KoreanUtils.format("%s으로써", "MP3"));
+        assertEqualsEx("아이폰이에요", KoreanUtils.format("%s예요", "아이폰"));
+        assertEqualsEx("사과예요", KoreanUtils.format("%s이에요", "사과"));
+
+        // 조사 뒤에 다른 글자가 이어지면 교정하지 않는다.
+        assertEqualsEx("사과다운로드", KoreanUtils.format("%s다운로드", "사과"));
+        assertEqualsEx("사과이나무", KoreanUtils.format("%s이나무", "사과"));
+        assertEqualsEx("???이나(나) 배", KoreanUtils.format("%s나 배", "???"));
+    }
+
+    @Test
+    public void testCharClass() throws Exception {
+        System.out.println("\nCharClass:");
+
+        // 전각 괄호, 따옴표
+        assertEqualsEx("「아이폰」을 선택", KoreanUtils.format("「%s」를 선택", "아이폰"));
+        assertEqualsEx("『Galaxy』로", KoreanUtils.format("『%s』으로", "Galaxy"));
+        assertEqualsEx("“사과”는", KoreanUtils.format("“%s”은", "사과"));
+
+        // 조사 뒤의 문장 부호, 이모지
+        assertEqualsEx("사과는!", KoreanUtils.format("%s은!", "사과"));
+        assertEqualsEx("철수다.", KoreanUtils.format("%s이다.", "철수"));
+        assertEqualsEx("아이폰을😀", KoreanUtils.format("%s를😀", "아이폰"));
+        assertEqualsEx("(아이폰을)", KoreanUtils.format("(%s를)", "아이폰"));
+
+        // formatter별로 설정
+        JosaFormatter josaFormatter = new JosaFormatter();
+        assertEqualsEx("사과은ㅋㅋ", josaFormatter.format("%s은ㅋㅋ", "사과"));
+        JosaTemplate heldTemplate = josaFormatter.getTemplate(Locale.KOREAN, "%s은ㅋㅋ");
+        josaFormatter.setJosaBoundaryChars(josaFormatter.getJosaBoundaryChars().with("ㅋ"));
+        josaFormatter.setEndSkipChars(josaFormatter.getEndSkipChars().with("*"));
+        assertEqualsEx("*사과*는ㅋㅋ", josaFormatter.format("*%s*은ㅋㅋ", "사과"));
+
+        // 받아둔 템플릿은 컴파일할 때의 조사 위치를 그대로 사용하므로 다시 받아야 한다.
+        assertEqualsEx("사과은ㅋㅋ", heldTemplate.format("사과"));
+        assertTrue(heldTemplate != josaFormatter.getTemplate(Locale.KOREAN, "%s은ㅋㅋ"));
+        assertEqualsEx("사과는ㅋㅋ", josaFormatter.getTemplate(Locale.KOREAN, "%s은ㅋㅋ").format("사과"));
+        assertEqualsEx("*사과*은ㅋㅋ", KoreanUtils.format("*%s*은ㅋㅋ", "사과"));
+
+        CharClass charClass = CharClass.of("ab").withRange('x', 'z').without("y");
+        assertTrue(charClass.contains('a') && charClass.contains('z'));
+        assertFalse(charClass.contains('c') || charClass.contains('y'));
+    }
+
+    @Test
+    public void testFullWidth() throws Exception {
+        System.out.println("\nFullWidth:");
+
+        assertEqualsEx("ＭＰ３를", KoreanUtils.format("%s을", "ＭＰ３"));
+        assertEqualsEx("１０을", KoreanUtils.format("%s를", "１０"));
+        assertEqualsEx("１，０００은", KoreanUtils.format("%s는", "１，０００"));
+        assertEqualsEx("３．５를", KoreanUtils.format("%s을", "３．５"));
+        assertEqualsEx("Ｇｏｏｇｌｅ을", KoreanUtils.format("%s를", "Ｇｏｏｇｌｅ"));
+        assertEqualsEx("ｉＰｈｏｎｅ　８을", KoreanUtils.format("%s를", "ｉＰｈｏｎｅ　８"));
+        assertEqualsEx("ﾃﾞｻﾞｲﾝ을", KoreanUtils.format("%s를", "ﾃﾞｻﾞｲﾝ"));
+        assertEqualsEx("ｶﾒﾗ를", KoreanUtils.format("%s을", "ｶﾒﾗ"));
+    }
+
+    @Test
+    public void testHangulJamo() throws Exception {
+        System.out.println("\nHangulJamo:");
+
+        // NFD: 한글 -> 한(U+1112 U+1161 U+11AB) 글(U+1100 U+1173 U+11AF)
+        String han = "\u1112\u1161\u11ab";
+        String geul = "\u1100\u1173\u11af";
+        String ha = "\u1112\u1161";
+        assertEqualsEx(han + geul + "로", KoreanUtils.format("%s으로", han + geul));
+        assertEqualsEx(han + "을", KoreanUtils.format("%s를", han));
+        assertEqualsEx(ha + "를", KoreanUtils.format("%s을", ha));
+        assertEqualsEx("사진/" + han + "은", KoreanUtils.format("%s는", "사진/" + han));
+
+        // 호환 자모
+        assertEqualsEx("ㅋㅋ을", KoreanUtils.format("%s를", "ㅋㅋ"));
+        assertEqualsEx("ㅠㅠ가", KoreanUtils.format("%s이", "ㅠㅠ"));
+        assertEqualsEx("ㄹ로", KoreanUtils.format("%s으로", "ㄹ"));
+
+        // 반각 한글 자모
+        assertEqualsEx("ﾻﾻ을", KoreanUtils.format("%s를", "ﾻﾻ"));
+        assertEqualsEx("ￏ를", KoreanUtils.format("%s을", "ￏ"));
+    }
+
+    @Test
+    public void testJosaAware() throws Exception {
+        JosaFormatter josaFormatter = KoreanUtils.getDefaultJosaFormatter();
+
+        // 미리 계산한 종성 유형을 그대로 사용한다. (판단할 수 없는 문자열이라도)
+        JosaText product = new JosaText("???", 1);
+        assertEqualsEx("???을 선택했습니다.", josaFormatter.format("%s를 선택했습니다.", product));
+        assertEqualsEx("???을 선택했습니다.", josaFormatter.formatMessage("{0}를 선택했습니다.", product));
+
+        // -1이면 JongSungDetector로 판단
+        assertEqualsEx("홍길동을 선택했습니다.", josaFormatter.format("%s를 선택했습니다.", new JosaText("홍길동", -1)));
+
+        // 종성 유형을 이미 알고 있으면 읽기 규칙을 적용하지 않는다. (아이폰3 -> 아이폰쓰리)
+        assertEqualsEx("서울로", josaFormatter.format("%s으로", new JosaText("서울", 2)));
+        assertEqualsEx("아이폰3을", josaFormatter.format("%s를", new JosaText("아이폰3", 1)));
+
+        JosaAware store = new JosaAware() {
+            @Override
+            public int getJongSungType() {
+                return 0;
+            }
+
+            @Override
+            public String getJosaText() {
+                return "스타벅스";
+            }
+
+            @Override
+            public String toString() {
+                return "Store(1)";
+            }
+        };
+        assertEqualsEx("스타벅스가 열었습니다.", josaFormatter.format("%s이 열었습니다.", store));
+
+        JosaTemplate template = josaFormatter.getTemplate(Locale.KOREAN, "%s과 %s을 선택했습니다.");
+        JosaRenderContext context = new JosaRenderContext();
+        assertEqualsEx("스타벅스와 ???을 선택했습니다.", template.format(context, store, product));
+
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        assertTrue(template.encodeTo(context, buffer, store, product));
+        assertEqualsEx("스타벅스와 ???을 선택했습니다.", new String(buffer.array(), 0, buffer.position(), "UTF-8"));
+
+        byte[] jongSungTypes = JosaText.getJongSungTypes(josaFormatter, Arrays.asList("홍길동", "Google", "아이폰3", "???"));
+        assertArrayEquals(new byte[]{1, 2, 0, -1}, jongSungTypes);
+    }
+
+    @Test
+    public void testClassify() throws Exception {
+        JosaFormatter josaFormatter = KoreanUtils.getDefaultJosaFormatter();
+
+        assertEquals(1, josaFormatter.classify("홍길동"));
+        assertEquals(2, josaFormatter.classify(new StringBuilder("Google")));
+        assertEquals(0, josaFormatter.classify("아이폰3"));
+        assertEquals(-1, josaFormatter.classify("???"));
+
+        String[] names = {"홍길동", "Google", "아이폰3", "???", null, "大韓民國", "MP3", "서울"};
+        CharSequence[] texts = new CharSequence[10000];
+        for (int i = 0; i < texts.length; ++i) {
+            texts[i] = names[i % names.length];
+        }
+
+        byte[] expected = new byte[texts.length];
+        for (int i = 0; i < texts.length; ++i) {
+            expected[i] = (byte) (texts[i] == null ? -1 : josaFormatter.getJongSungType(texts[i].toString()));
+        }
+
+        byte[] jongSungTypes = new byte[texts.length];
+        josaFormatter.classifyAll(texts, jongSungTypes);
+        assertArrayEquals(expected, jongSungTypes);
+
+        jongSungTypes = new byte[texts.length];
+        josaFormatter.classifyAll(texts, jongSungTypes, 4);
+        assertArrayEquals(expected, jongSungTypes);
+
+        try {
+            josaFormatter.classifyAll(texts, new byte[1]);
+            fail();
+        } catch (IllegalArgumentException ignore) {
+        }
+    }
+
+    @Test
+    public void testJongSungIndex() throws Exception {
+        JosaFormatter josaFormatter = new JosaFormatter();
+
+        CharSequence[] names = {"홍길동", "Google", "아이폰3", "???", null, "大韓民國", "홍길동"};
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JongSungIndex.write(josaFormatter, names, outputStream);
+
+        // 판단할 수 없는 이름, null, 중복은 제외
+        JongSungIndex index = JongSungIndex.load(ByteBuffer.wrap(outputStream.toByteArray()));
+        assertEquals(4, index.size());
+        assertEquals(1, index.get("홍길동"));
+        assertEquals(2, index.get(new StringBuilder("Google")));
+        assertEquals(0, index.get("아이폰3"));
+        assertEquals(1, index.get("[大韓民國]", 1, 5));
+        assertEquals(JongSungIndex.NOT_FOUND, index.get("???"));
+        assertEquals(JongSungIndex.NOT_FOUND, index.get("홍길"));
+        assertEquals(JongSungIndex.NOT_FOUND, index.get(""));
+
+        // 색인에 있는 값을 JongSungDetector보다 먼저 사용한다.
+        outputStream = new ByteArrayOutputStream();
+        JongSungIndex.write(new CharSequence[]{"???", "Google"}, new byte[]{1, 1}, outputStream);
+        File file = File.createTempFile("josa", ".jsi");
+        try {
+            FileOutputStream fileOutputStream = new FileOutputStream(file);
+            try {
+                outputStream.writeTo(fileOutputStream);
+            } finally {
+                fileOutputStream.close();
+            }
+
+            josaFormatter.setJongSungIndex(JongSungIndex.load(file));
+            assertEqualsEx("???을 선택했습니다.", josaFormatter.format("%s를 선택했습니다.", "???"));
+            assertEqualsEx("Google으로 홍길동이", josaFormatter.format("%s로 %s가", "Google", "홍길동"));
+            assertEquals(1, josaFormatter.classify("Google"));
+
+            StringBuilder sb = new StringBuilder();
+            josaFormatter.getTemplate(Locale.KOREAN, "%s를 선택했습니다.").formatTo(new JosaRenderContext(), sb, "???");
+            assertEqualsEx("???을 선택했습니다.", sb.toString());
+
+            // 색인을 다시 만들 때는 등록된 색인을 사용하지 않는다.
+            outputStream = new ByteArrayOutputStream();
+            JongSungIndex.write(josaFormatter, new CharSequence[]{"???", "Google"}, outputStream);
+            index = JongSungIndex.load(ByteBuffer.wrap(outputStream.toByteArray()));
+            assertEquals(2, index.get("Google"));
+            assertEquals(JongSungIndex.NOT_FOUND, index.get("???"));
+
+            josaFormatter.setJongSungIndex(null);
+            assertEqualsEx("Google로", josaFormatter.format("%s으로", "Google"));
+        } finally {
+            file.delete();
+        }
+
+        names = new CharSequence[5000];
+        for (int i = 0; i < names.length; ++i) {
+            names[i] = "상품" + i;
+        }
+        outputStream = new ByteArrayOutputStream();
+        JongSungIndex.write(josaFormatter, names, outputStream);
+        index = JongSungIndex.load(ByteBuffer.wrap(outputStream.toByteArray()));
+        assertEquals(names.length, index.size());
+        for (CharSequence name : names) {
+            assertEquals(josaFormatter.classify(name), index.get(name));
+        }
+
+        try {
+            JongSungIndex.load(ByteBuffer.wrap(new byte[16]));
+            fail();
+        } catch (IOException ignore) {
+        }
+    }
+
+    @Test
+    public void testUnit() throws Exception {
+        assertEqualsEx("30%를", KoreanUtils.format("%s을", "30%"));
+        assertEqualsEx("5kg을", KoreanUtils.format("%s를", "5kg"));
+        assertEqualsEx("1.5 kg이", KoreanUtils.format("%s가", "1.5 kg"));
+        assertEqualsEx("10GB를", KoreanUtils.format("%s을", "10GB"));
+        assertEqualsEx("36.5℃로", KoreanUtils.format("%s으로", "36.5℃"));
+        assertEqualsEx("100m는", KoreanUtils.format("%s은", "100m"));
+        assertEqualsEx("５０％를", KoreanUtils.format("%s을", "５０％"));
+        assertEqualsEx("3개를", KoreanUtils.format("%s을", "3개"));
+        assertEqualsEx("1,000원을", KoreanUtils.format("%s를", "1,000원"));
+
+        // 숫자 뒤가 아니거나 대소문자가 다르면 단위가 아님
+        assertEqualsEx("Tom을", KoreanUtils.format("%s를", "Tom"));
+        assertEqualsEx("5G를", KoreanUtils.format("%s을", "5G"));
+        assertEqualsEx("10M이", KoreanUtils.format("%s가", "10M"));
+
+        JosaFormatter josaFormatter = new JosaFormatter();
+        josaFormatter.setJongSungCache(new JongSungCache(100, 1000));
+        assertEqualsEx("3in은", josaFormatter.format("%s는", "3in"));
+
+        // 다른 JosaFormatter의 캐시는 비우지 않는다.
+        JosaFormatter otherJosaFormatter = new JosaFormatter();
+        JongSungCache otherJongSungCache = new JongSungCache(100, 1000);
+        otherJosaFormatter.setJongSungCache(otherJongSungCache);
+        assertEqualsEx("3in은", otherJosaFormatter.format("%s는", "3in"));
+        assertEquals(1, otherJongSungCache.size());
+
+        for (JosaFormatter.JongSungDetector jongSungDetector : josaFormatter.getJongSungDetectors()) {
+            if (jongSungDetector instanceof JosaFormatter.UnitJongSungDetector) {
+                ((JosaFormatter.UnitJongSungDetector) jongSungDetector).addUnit("in", 0); // 인치
+            }
+        }
+        assertEqualsEx("3in는", josaFormatter.format("%s은", "3in"));
+        assertEqualsEx("3in은", otherJosaFormatter.format("%s는", "3in"));
+        assertEquals(1, otherJongSungCache.size());
+        assertEquals(1, otherJongSungCache.getHitCount());
+    }
+
+    enum OrderState {
+        ORDERED("주문 완료"), SHIPPING("배송중"), DELIVERED("배송 완료"), CANCELED("취소");
+
+        private final String label;
+
+        OrderState(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    @Test
+    public void testRegisterEnum() throws Exception {
+        JosaFormatter josaFormatter = new JosaFormatter();
+        josaFormatter.registerEnum(OrderState.class);
+        assertEquals(0, josaFormatter.getPresetJongSungType(OrderState.ORDERED));
+        assertEquals(1, josaFormatter.getPresetJongSungType(OrderState.SHIPPING));
+        assertEquals(0, josaFormatter.getPresetJongSungType(OrderState.CANCELED));
+
+        assertEqualsEx("배송중으로 변경되었습니다.", josaFormatter.format("%s로 변경되었습니다.", OrderState.SHIPPING));
+        assertEqualsEx("취소로 변경되었습니다.", josaFormatter.formatMessage("{0}으로 변경되었습니다.", OrderState.CANCELED));
+        assertEqualsEx("주문 완료를 취소가", josaFormatter.getTemplate(Locale.KOREAN, "%s을 %s이").format(new JosaRenderContext(), OrderState.ORDERED, OrderState.CANCELED));
+
+        // 같은 instance인 경우에만 사용한다.
+        String gold = "골드";
+        josaFormatter.registerLabels(gold, "실버");
+        assertEquals(0, josaFormatter.getPresetJongSungType(gold));
+        assertEquals(-1, josaFormatter.getPresetJongSungType(new String(gold)));
+        assertEqualsEx("골드로", josaFormatter.format("%s으로", gold));
+        assertEqualsEx("골드로", josaFormatter.format("%s으로", new String(gold)));
+    }
+
+    @Test
+    public void testDateTime() throws Exception {
+        Calendar calendar = Calendar.getInstance(Locale.KOREAN);
+        calendar.set(2024, Calendar.MARCH, 7, 13, 5, 9);
+        calendar.set(Calendar.MILLISECOND, 42);
+        Date date = calendar.getTime();
+
+        JosaFormatter josaFormatter = new JosaFormatter();
+        assertEqualsEx("3월로 변경", josaFormatter.format(Locale.KOREAN, "%tB으로 변경", date));
+        assertEqualsEx("2024년 03월을", josaFormatter.format(Locale.KOREAN, "%1$tY년 %1$tm월을", date));
+        assertEqualsEx("2024를", josaFormatter.format(Locale.KOREAN, "%tY을", date));
+        assertEqualsEx("03을", josaFormatter.format(Locale.KOREAN, "%tm를", calendar));
+        assertEqualsEx("March를", josaFormatter.format(Locale.ENGLISH, "%tB을", date.getTime()));
+        assertEqualsEx("2024-03-07을", josaFormatter.format(Locale.KOREAN, "%tF를", date));
+
+        // parseFormat()도 같은 문법을 사용한다.
+        ArrayList<JosaFormatter.FormattedString> formattedStrings = JosaFormatter.parseFormat(Locale.KOREAN, "%tB에", new Object[]{date});
+        assertEquals(2, formattedStrings.size());
+        assertEquals("3월", formattedStrings.get(0).toString());
+        assertTrue(formattedStrings.get(0).isFormatString());
+        assertEquals("에", formattedStrings.get(1).toString());
+        assertFalse(formattedStrings.get(1).isFormatString());
+
+        formattedStrings = JosaFormatter.parseFormat(Locale.KOREAN, "%1$tY년 %1$tm월을 100%%", new Object[]{date});
+        assertEquals(4, formattedStrings.size());
+        assertEquals("2024", formattedStrings.get(0).toString());
+        assertEquals("년 ", formattedStrings.get(1).toString());
+        assertEquals("03", formattedStrings.get(2).toString());
+        assertEquals("월을 100%", formattedStrings.get(3).toString());
+
+        // String.format과 같은 결과
+        String conversions = "HIklMSLNpzZsQBbhAaCYyjmdeRTrDFc";
+        Calendar[] calendars = {calendar, Calendar.getInstance()};
+        calendars[1].set(5, Calendar.DECEMBER, 31, 0, 0, 0);
+        for (Locale locale : new Locale[]{Locale.KOREAN, Locale.US, Locale.FRANCE, null}) {
+            for (int i = 0; i < conversions.length(); ++i) {
+                for (String format : new String[]{"%t" + conversions.charAt(i), "%T" + conversions.charAt(i), "%-12t" + conversions.charAt(i)}) {
+                    for (Calendar c : calendars) {
+                        String expected = String.format(locale, format, c);
+                        assertEquals(format, expected, josaFormatter.getTemplate(locale, format).format(c));
+                        assertEquals(format, expected, josaFormatter.getTemplate(locale, format).format(c.getTime()));
+                        assertEquals(format, expected, josaFormatter.getTemplate(locale, format).format(new JosaRenderContext(), c.getTimeInMillis()));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testJosaMessage() throws Exception {
+        final int[] toStringCount = {0};
+        Object fileName = new Object() {
+            @Override
+            public String toString() {
+                ++toStringCount[0];
+                return "사진.jpg";
+            }
+        };
+
+        JosaMessage message = KoreanUtils.lazyFormat("%s을 삭제했습니다.", fileName);
+        assertFalse(message.isRendered());
+        assertEquals(0, toStringCount[0]);
+
+        assertEquals(15, message.length());
+        assertTrue(message.isRendered());
+        assertEqualsEx("사진.jpg를 삭제했습니다.", message.toString());
+        assertEquals('를', message.charAt(6));
+        assertEquals(1, toStringCount[0]);
+
+        assertEqualsEx("아이폰을 Galaxy로", KoreanUtils.lazyFormatMessage("{0}를 {1}으로", "아이폰", "Galaxy").toString());
+        JosaTemplate template = KoreanUtils.getDefaultJosaFormatter().getTemplate(Locale.KOREAN, "%s이 %s");
+        assertEqualsEx("홍길동이 로그인", JosaMessage.of(template, "홍길동", "로그인").toString());
+
+        // 출력되지 않는 로그는 형식화하지 않는다.
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.setLevel(Level.INFO);
+        final ArrayList<String> messages = new ArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                messages.add(getFormatter().formatMessage(record));
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        handler.setFormatter(new JosaLogFormatter(KoreanUtils.getDefaultJosaFormatter(), Locale.KOREAN));
+        logger.addHandler(handler);
+
+        message = KoreanUtils.lazyFormat("%s을 삭제했습니다.", fileName);
+        logger.log(Level.FINE, "{0}", message);
+        assertFalse(message.isRendered());
+        logger.log(Level.INFO, "{0}", message);
+        assertTrue(message.isRendered());
+        logger.log(Level.INFO, "{0}를 {1}으로 변경했습니다.", new Object[]{"아이폰", "Galaxy"});
+        logger.info("{0}를");
+        assertEquals(Arrays.asList("사진.jpg를 삭제했습니다.", "아이폰을 Galaxy로 변경했습니다.", "{0}를"), messages);
+
+        // JosaLogHandler는 메시지를 형식화해서 전달한다.
+        logger.removeHandler(handler);
+        messages.clear();
+        handler.setFormatter(new SimpleFormatter());
+        JosaLogHandler josaLogHandler = new JosaLogHandler(handler);
+        josaLogHandler.setLevel(Level.WARNING);
+        logger.addHandler(josaLogHandler);
+        logger.log(Level.INFO, "{0}을", "Google");
+        logger.log(Level.WARNING, "{0}을", "Google");
+        assertEquals(Arrays.asList("Google을"), messages);
+    }
+
+    @Test
+    public void testJosaStringBuilder() throws Exception {
+        JosaStringBuilder sb = new JosaStringBuilder();
+        sb.append("아이폰").append("를 ").append(3).append("개로 변경");
+        assertEqualsEx("아이폰을 3개로 변경", sb.toString());
+
+        sb.setLength(0);
+        sb.append("Google").append("와 ").append(new StringBuilder("Apple")).append("이 ").append('7').append("으로");
+        assertEqualsEx("Google과 Apple이 7로", sb.toString());
+
+        // 괄호 뒤, 판단할 수 없는 경우는 그대로 추가
+        sb.setLength(0);
+        sb.append("'홍길동").append("'는 ").append("???").append("을");
+        assertEqualsEx("'홍길동'은 ???을", sb.toString());
+        sb.setLength(0);
+        sb.append("'홍길동'").append("는");
+        assertEqualsEx("'홍길동'은", sb.toString());
+
+        // 공백으로 끝나는 문자열, 조사 뒤의 문자열은 값이 아님
+        assertEqualsEx("파일을 이 폴더로 이동", new JosaStringBuilder().append("파일을 ").append("이 폴더로 이동").toString());
+        assertEqualsEx("아이폰을 이 폴더로", new JosaStringBuilder().append("아이폰").append("를").append(" ").append("이 폴더로").toString());
+        assertEqualsEx("아이폰을이 폴더로", new JosaStringBuilder().append("아이폰").append("를").append("이 폴더로").toString());
+
+        // 조사로 시작하지 않거나 맨 앞인 경우는 그대로 추가
+        sb.setLength(0);
+        sb.append("이 파일은 ").appendLiteral("사진").appendLiteral("를").append(" 포함");
+        assertEqualsEx("이 파일은 사진를 포함", sb.toString());
+
+        sb.setLength(0);
+        sb.append(new JosaText("???", 1)).append("를");
+        assertEqualsEx("???을", sb.toString());
+
+        // StringBuilder 재사용
+        StringBuilder stringBuilder = new StringBuilder("[로그] ");
+        sb = new JosaStringBuilder(KoreanUtils.getDefaultJosaFormatter(), stringBuilder, new JosaRenderContext());
+        sb.append("아이폰3").append("을").append(", ").append("abc", 0, 2).append("과");
+        assertEqualsEx("[로그] 아이폰3를, ab와", stringBuilder.toString());
+    }
+
+    @Test
+    public void testJosaJoiner() throws Exception {
+        JosaFormatter josaFormatter = KoreanUtils.getDefaultJosaFormatter();
+
+        JosaJoiner fruits = new JosaJoiner(josaFormatter, JosaJoiner.AND).add("사과").add("배").add("귤");
+        assertEqualsEx("사과, 배와 귤", fruits.toString());
+        assertEquals(2, fruits.getJongSungType());
+        assertEqualsEx("사과, 배와 귤을 샀습니다.", josaFormatter.format("%s를 샀습니다.", fruits));
+        assertEqualsEx("사과, 배와 귤이", new JosaStringBuilder(josaFormatter).append(fruits).append("가").toString());
+
+        fruits.add("수박");
+        assertEqualsEx("사과, 배, 귤과 수박", fruits.toString());
+        // 다시 add()할 때까지 같은 문자열을 사용한다.
+        assertSame(fruits.toString(), fruits.toString());
+        assertEquals(12, fruits.length());
+        assertEquals('과', fruits.charAt(8));
+        assertEqualsEx("귤과", fruits.subSequence(7, 9).toString());
+        assertEqualsEx("사과, 배, 귤과 수박으로", josaFormatter.formatMessage("{0}로", fruits));
+
+        assertEqualsEx("Google이나 Apple은", josaFormatter.format("%s는",
+                JosaJoiner.join(josaFormatter, JosaJoiner.OR, Arrays.asList("Google", "Apple"))));
+        assertEqualsEx("2나 3", JosaJoiner.join(josaFormatter, JosaJoiner.OR, Arrays.asList(2, 3)).toString());
+        assertEqualsEx("???과(와) 홍길동", JosaJoiner.join(josaFormatter, JosaJoiner.AND, Arrays.asList("???", "홍길동")).toString());
+        assertEqualsEx("홍길동", JosaJoiner.join(josaFormatter, JosaJoiner.AND, Arrays.asList("홍길동")).toString());
+        assertEqualsEx("", new JosaJoiner(josaFormatter, JosaJoiner.AND).toString());
+        assertEquals(-1, new JosaJoiner(josaFormatter, JosaJoiner.AND).getJongSungType());
+
+        JosaJoiner names = new JosaJoiner(josaFormatter, JosaJoiner.AND, "/");
+        names.add(new JosaText("???", 1)).add(new JosaText("!!!", 0));
+        assertEqualsEx("???과 !!!를", josaFormatter.format("%s을", names));
+    }
+
+    @Test
+    public void testRepeatedArgument() throws Exception {
+        final int[] toStringCount = {0};
+        Object folder = new Object() {
+            @Override
+            public String toString() {
+                ++toStringCount[0];
+                return "사진";
+            }
+        };
+
+        JosaFormatter josaFormatter = new JosaFormatter();
+        JosaTemplate template = josaFormatter.getTemplate(Locale.KOREAN, "%1$s을 삭제하면 %1$s의 하위 항목과 %<s이 포함된 %2$s도 삭제됩니다.");
+        Object[] args = {folder, "앨범"};
+        String expected = "사진을 삭제하면 사진의 하위 항목과 사진이 포함된 앨범도 삭제됩니다.";
+
+        // 같은 인자는 한번만 형식화한다.
+        assertEqualsEx(expected, template.format(args));
+        assertEquals(1, toStringCount[0]);
+
+        JosaRenderContext context = new JosaRenderContext();
+        StringBuilder sb = new StringBuilder();
+        assertEqualsEx(expected, template.formatTo(context, sb, args).toString());
+        assertEquals(2, toStringCount[0]);
+
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        assertTrue(template.encodeTo(context, buffer, args));
+        assertEqualsEx(expected, new String(Arrays.copyOf(buffer.array(), buffer.position()), "UTF-8"));
+        assertEquals(3, toStringCount[0]);
+
+        // 판단할 수 없는 인자도 종성을 한번만 검사한다.
+        final int[] canHandleCount = {0};
+        josaFormatter.getJongSungDetectors().add(0, new JosaFormatter.JongSungDetector() {
+            @Override
+            public boolean canHandle(String str) {
+                ++canHandleCount[0];
+                return false;
+            }
+
+            @Override
+            public int getJongSungType(String str) {
+                return -1;
+            }
+        });
+        template = josaFormatter.getTemplate(Locale.KOREAN, "%1$s을 %1$s이 %<s는");
+        expected = "???을(를) ???이(가) ???은(는)";
+        assertEqualsEx(expected, template.format("???"));
+        assertEquals(1, canHandleCount[0]);
+        assertEqualsEx(expected, template.format(context, "???"));
+        assertEquals(2, canHandleCount[0]);
+        buffer.clear();
+        assertTrue(template.encodeTo(context, buffer, "???"));
+        assertEqualsEx(expected, new String(Arrays.copyOf(buffer.array(), buffer.position()), "UTF-8"));
+        assertEquals(3, canHandleCount[0]);
+        josaFormatter.getJongSungDetectors().remove(0);
+
+        // 형식이 다르면 따로 형식화한다.
+        assertEqualsEx("10을 a를", josaFormatter.format("%1$d을 %1$x을", 10));
+        assertEqualsEx("Google과 Google로", josaFormatter.format("%s와 %<s으로", "Google"));
+        assertEqualsEx("아이폰을 Galaxy로, Galaxy를", josaFormatter.formatMessage("{0}를 {1}으로, {1}을", "아이폰", "Galaxy"));
+    }
+
+    @Test
+    public void testSpecialize() throws Exception {
+        JosaFormatter josaFormatter = new JosaFormatter();
+        String[] formats = {
+                "%s을 %s으로 변경할까요?",
+                "[%s]를 선택했습니다. %3$d개",
+                "%s이(가) %s와 %s",
+                "%1$s을 삭제하면 %1$s의 하위 항목과 %<s이 포함된 %2$s도 삭제됩니다.",
+                "%s%s은",
+                "선택: %s",
+        };
+        Object[][] argsList = {
+                {"아이폰", "Galaxy", 3},
+                {"서울", "", 7},
+                {"???", new JosaText("???", 2), 0},
+                {"", "大韓民國", 1234},
+                {"칼", "Google", 10},
+        };
+
+        JosaRenderContext context = new JosaRenderContext();
+        for (String format : formats) {
+            JosaTemplate template = josaFormatter.getTemplate(Locale.KOREAN, format);
+            JosaTemplate specialized = JosaFormatTemplate.compile(josaFormatter, Locale.KOREAN, format);
+            specialized.specialize();
+            assertTrue(specialized.isSpecialized());
+
+            for (Object[] args : argsList) {
+                String expected = template.format(args);
+                assertEqualsEx(expected, specialized.format(args));
+                assertEqualsEx(expected, specialized.format(context, args));
+            }
+        }
+
+        JosaTemplate messageFormat = JosaMessageFormat.compile(josaFormatter, Locale.KOREAN, "{0}개를 {1}으로, {1}을 {2,number}개");
+        messageFormat.specialize();
+        assertEqualsEx("12,345개를 Galaxy로, Galaxy를 3개", messageFormat.format(12345, "Galaxy", 3));
+        assertEqualsEx("12,345개를 Galaxy로, Galaxy를 3개", messageFormat.format(context, 12345, "Galaxy", 3));
+
+        // 지정한 횟수만큼 사용하면 자동으로 specialize 된다.
+        josaFormatter.setSpecializationThreshold(3);
+        JosaTemplate template = josaFormatter.getTemplate(Locale.KOREAN, "%s을 선택했습니다.");
+        template.format("홍길동");
+        template.format("Google");
+        assertFalse(template.isSpecialized());
+        assertEqualsEx("사과를 선택했습니다.", template.format(context, "사과"));
+        assertTrue(template.isSpecialized());
+        assertEqualsEx("홍길동을 선택했습니다.", template.format("홍길동"));
+    }
+
+    @Test
+    public void testSpecializePresetJongSungType() throws Exception {
+        JosaFormatter josaFormatter = new JosaFormatter();
+        String[] formats = {"%s를 샀다", "%s으로 갔다", "%s을 사면 %<s이 남는다"};
+        JosaRenderContext context = new JosaRenderContext();
+        for (String format : formats) {
+            JosaTemplate template = JosaFormatTemplate.compile(josaFormatter, Locale.KOREAN, format);
+            JosaTemplate specialized = JosaFormatTemplate.compile(josaFormatter, Locale.KOREAN, format);
+            specialized.specialize();
+
+            // JosaAware가 범위를 벗어난 값을 반환해도 같은 결과여야 한다.
+            for (int jongSungType = -3; jongSungType <= 6; ++jongSungType) {
+                final int presetJongSungType = jongSungType;
+                Object arg = new JosaAware() {
+                    @Override
+                    public int getJongSungType() {
+                        return presetJongSungType;
+                    }
+
+                    @Override
+                    public String getJosaText() {
+                        return "사과";
+                    }
+                };
+
+                String expected = template.format(arg);
+                assertEqualsEx(expected, template.format(context, arg));
+                assertEqualsEx(expected, specialized.format(arg));
+                assertEqualsEx(expected, specialized.format(context, arg));
+            }
+        }
+
+        JosaTemplate template = JosaFormatTemplate.compile(josaFormatter, Locale.KOREAN, "%s를 샀다");
+        template.specialize();
+        assertEqualsEx("사과를 샀다", template.format(new JosaText("사과", -1)));
+        assertEqualsEx("사과을 샀다", template.format(new JosaText("사과", 1)));
+    }
+}
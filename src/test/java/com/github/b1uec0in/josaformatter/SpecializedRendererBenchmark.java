@@ -0,0 +1,89 @@
+package com.github.b1uec0in.josaformatter;
+
+import java.util.Locale;
+
+/**
+ * specialize 한 템플릿과 기존 템플릿의 형식화 시간(ns/op)을 비교한다.
+ * 테스트로 실행하지 않으며 main()으로 직접 실행한다.
+ */
+public class SpecializedRendererBenchmark {
+    private static final int WARMUP_COUNT = 200000;
+    private static final int MEASURE_COUNT = 1000000;
+    private static final int MEASURE_ROUNDS = 5;
+
+    private static final String[] FORMATS = {
+            "%s을 선택했습니다.",
+            "%s을 %s으로 변경할까요? %d개",
+            "%1$s을 삭제하면 %1$s의 하위 항목도 삭제됩니다.",
+    };
+
+    private static final Object[][] ARGS = {
+            {"홍길동", "Galaxy", 3},
+            {"Google", "아이폰", 1234},
+            {"大韓民國", "서울", 10},
+    };
+
+    interface Scenario {
+        void run(Object[] args);
+    }
+
+    public static void main(String[] args) {
+        JosaFormatter josaFormatter = new JosaFormatter();
+        for (String format : FORMATS) {
+            final JosaTemplate interpreted = JosaFormatTemplate.compile(josaFormatter, Locale.KOREAN, format);
+            final JosaTemplate specialized = JosaFormatTemplate.compile(josaFormatter, Locale.KOREAN, format);
+            specialized.specialize();
+
+            final JosaRenderContext context = new JosaRenderContext();
+            final StringBuilder sb = new StringBuilder(256);
+
+            System.out.println(format);
+            report("  format           ", measure(new Scenario() {
+                @Override
+                public void run(Object[] args) {
+                    interpreted.format(args);
+                }
+            }), measure(new Scenario() {
+                @Override
+                public void run(Object[] args) {
+                    specialized.format(args);
+                }
+            }));
+            report("  formatTo(context)", measure(new Scenario() {
+                @Override
+                public void run(Object[] args) {
+                    sb.setLength(0);
+                    interpreted.formatTo(context, sb, args);
+                }
+            }), measure(new Scenario() {
+                @Override
+                public void run(Object[] args) {
+                    sb.setLength(0);
+                    specialized.formatTo(context, sb, args);
+                }
+            }));
+        }
+    }
+
+    private static void report(String name, double interpreted, double specialized) {
+        System.out.println(String.format("%s interpreted %8.1f ns, specialized %8.1f ns (%.2fx)", name, interpreted, specialized, interpreted / specialized));
+    }
+
+    // 1회 호출당 시간(ns). 여러번 측정해서 가장 작은 값을 사용한다.
+    private static double measure(Scenario scenario) {
+        for (int i = 0; i < WARMUP_COUNT; ++i) {
+            scenario.run(ARGS[i % ARGS.length]);
+        }
+
+        long min = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURE_ROUNDS; ++round) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < MEASURE_COUNT; ++i) {
+                scenario.run(ARGS[i % ARGS.length]);
+            }
+            min = Math.min(min, System.nanoTime() - begin);
+        }
+
+        return (double) min / MEASURE_COUNT;
+    }
+}